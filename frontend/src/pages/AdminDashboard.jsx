@@ -1,8 +1,8 @@
 import React, { useState, useEffect } from 'react';
 import { useNavigate } from 'react-router-dom';
 import { Users, GraduationCap, UserCheck, Shield, ArrowDown, AlertCircle } from 'lucide-react';
-import api from '../services/api';
-import { getToken, removeToken, getUsername } from '../utils/auth';
+import api, { logout } from '../services/api';
+import { getToken, getUsername } from '../utils/auth';
 
 /**
  * AdminDashboard - 管理员专属控制面板
@@ -17,7 +17,73 @@ function AdminDashboard() {
 
     useEffect(() => {
         loadStats();
+        // 订阅统计推送，组件卸载时断开
+        const controller = new AbortController();
+        subscribeStats(controller.signal);
+        return () => controller.abort();
     }, []);
+    // 订阅统计推送（SSE）：snapshot 事件为完整统计，delta 事件只含变化量。
+    // EventSource 无法携带 Authorization 头，这里用 fetch 读取事件流；连接断开后 5 秒重连
+    const subscribeStats = async (signal) => {
+        while (!signal.aborted) {
+            try {
+                const resp = await fetch(`${api.defaults.baseURL}/api/admin/stats/stream`, {
+                    headers: { Authorization: `Bearer ${getToken()}`, Accept: 'text/event-stream' },
+                    signal,
+                });
+                if (resp.status === 401 || resp.status === 403) {
+                    // 访问令牌可能已过期：通过 axios 拦截器刷新令牌后再重连
+                    await api.get('/api/admin/stats');
+                } else if (resp.ok) {
+                    await readEvents(resp.body, signal);
+                }
+            } catch (error) {
+                if (signal.aborted) return;
+                console.warn('统计推送连接中断:', error.message);
+            }
+            await new Promise((resolve) => setTimeout(resolve, 5000));
+        }
+    };
+    // 逐行解析事件流，事件以空行结束
+    const readEvents = async (body, signal) => {
+        const reader = body.pipeThrough(new TextDecoderStream()).getReader();
+        let buffer = '';
+        let event = 'message';
+        let data = '';
+        while (!signal.aborted) {
+            const { value, done } = await reader.read();
+            if (done) return;
+            buffer += value;
+            const lines = buffer.split('\n');
+            buffer = lines.pop();
+            for (const line of lines) {
+                if (line.startsWith('event:')) {
+                    event = line.slice(6).trim();
+                } else if (line.startsWith('data:')) {
+                    data += line.slice(5);
+                } else if (line.trim() === '') {
+                    if (data) applyEvent(event, JSON.parse(data));
+                    event = 'message';
+                    data = '';
+                }
+            }
+        }
+    };
+    const applyEvent = (event, payload) => {
+        if (event === 'snapshot') {
+            setStats((prev) => ({ ...prev, ...payload }));
+            setLoading(false);
+        } else if (event === 'delta') {
+            setStats((prev) => {
+                if (!prev) return prev;
+                const next = { ...prev };
+                Object.entries(payload).forEach(([key, delta]) => {
+                    next[key] = (next[key] || 0) + delta;
+                });
+                return next;
+            });
+        }
+    };
     // 加载统计数据
     const loadStats = async () => {
         try {
@@ -46,7 +112,7 @@ function AdminDashboard() {
     };
     // 退出登录
     const handleLogout = () => {
-        removeToken();
+        logout();
         navigate('/login');
     };
 
@@ -1,10 +1,9 @@
 import React, { useEffect, useState } from 'react';
 import { useNavigate } from 'react-router-dom';
-import api from '../services/api';
+import api, { logout } from '../services/api';
 import toast from 'react-hot-toast';
 import ConfirmDialog from '../components/ConfirmDialog';
 import { GraduationCap, User, ArrowDown, ListTodo, Trash2, Plus } from 'lucide-react';
-import { clearToken } from '../utils/auth';
 /*   formatToday 函数格式化当前日期为中文格式
 year: 'numeric' - 显示完整年份
 month: 'long' - 显示月份全称（如"1月"）
@@ -57,12 +56,12 @@ function Dashboard() {
     // 加载学生统计信息
     async function loadStudentStats() {
         try {
-            const resp = await api.get('/api/students', { params: { page: 0, size: 1000 } });
-            const data = resp.data;
-            const list = Array.isArray(data?.content) ? data.content : Array.isArray(data) ? data : [];
-            const total = list.length;
-            const male = list.filter((s) => s.gender === '男').length;
-            const female = list.filter((s) => s.gender === '女').length;
+            // 后端分组统计，不再拉取全部学生在前端计数
+            const resp = await api.get('/api/students/stats');
+            const data = resp.data || {};
+            const total = data.total || 0;
+            const male = data.genders?.['男'] || 0;
+            const female = data.genders?.['女'] || 0;
             // 计算学生增长率
             const activeRate = total === 0 ? 0 : Math.round(((male + female) / total) * 100);
             setStats({ totalStudents: total, male, female, activeRate });
@@ -116,7 +115,7 @@ function Dashboard() {
             title: '退出登录',
             message: '确定要退出登录吗？',
             onConfirm: () => {
-                clearToken();
+                logout();
                 toast.success('已退出登录');
                 navigate('/login');
                 setConfirmDialog({ ...confirmDialog, isOpen: false });
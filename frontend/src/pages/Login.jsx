@@ -1,6 +1,6 @@
 import React, { useState } from 'react';
 import api from '../services/api';
-import { saveToken, clearToken, isAdmin } from '../utils/auth';
+import { saveToken, saveRefreshToken, clearToken, isAdmin } from '../utils/auth';
 import { useNavigate } from 'react-router-dom';
 import toast from 'react-hot-toast';
 import { User, Lock, GraduationCap } from 'lucide-react';
@@ -30,6 +30,7 @@ export default function Login() {
                 return;
             }
             saveToken(token);  // 保存 token，会自动解析并保存用户名和角色
+            saveRefreshToken(resp.data?.refreshToken);  // 保存刷新令牌，token 过期后自动换取新令牌
             toast.success(`登录成功，欢迎回来！`);
 
             // 根据用户角色跳转到不同页面
@@ -1,5 +1,5 @@
 import React, { useEffect, useState, useRef } from 'react';
-import api from '../services/api';
+import api, { logout } from '../services/api';
 import StudentForm from '../components/StudentForm';
 import ConfirmDialog from '../components/ConfirmDialog';
 import toast from 'react-hot-toast';
@@ -15,7 +15,7 @@ import {
     Trash2,
     Inbox
 } from 'lucide-react';
-import { clearToken, getUsername } from '../utils/auth';
+import { getUsername } from '../utils/auth';
 import { useNavigate } from 'react-router-dom';
 
 
@@ -277,7 +277,7 @@ export default function Students() {
             title: '退出登录',
             message: '确定要退出登录吗？',
             onConfirm: () => {
-                clearToken();
+                logout();
                 toast.success('已退出登录');
                 navigate('/login');
                 setConfirmDialog({ ...confirmDialog, isOpen: false });
@@ -1,5 +1,5 @@
 import axios from 'axios';
-import { getToken, clearToken } from '../utils/auth';
+import { getToken, clearToken, getRefreshToken, saveToken, saveRefreshToken } from '../utils/auth';
 
 // 从 Vite 环境变量读取后端基础 URL
 // import.meta.env.VITE_API_BASE_URL: Vite 提供的环境变量访问方式，可在 .env 文件中配置
@@ -23,13 +23,59 @@ api.interceptors.request.use((config) => {
     return config;
 }, (error) => Promise.reject(error));
 
-// 响应拦截器：在每次响应返回后，检查响应状态码，若为 401 或 403，则清理本地存储的 token
-api.interceptors.response.use((res) => res, (error) => {
+// 正在进行的刷新请求：多个请求同时发现令牌过期时共用同一次刷新，避免刷新令牌被重复使用
+let refreshPromise = null;
+
+// 用刷新令牌换取新的访问令牌与刷新令牌（直接使用 axios，不经过本实例的拦截器）
+function refreshTokens() {
+    if (!refreshPromise) {
+        refreshPromise = axios.post(`${BASE_URL}/api/auth/refresh`, { refreshToken: getRefreshToken() })
+            .then((resp) => {
+                saveToken(resp.data.token);
+                saveRefreshToken(resp.data.refreshToken);
+                return resp.data.token;
+            })
+            .finally(() => {
+                refreshPromise = null;
+            });
+    }
+    return refreshPromise;
+}
+
+// 响应拦截器：在每次响应返回后，检查响应状态码，若为 401 或 403：
+// 1. 存在刷新令牌时先刷新一次，再用新 token 重发原请求（访问令牌有效期较短，过期属于正常情况）
+// 2. 刷新失败或重发后仍被拒绝，则清理本地存储的 token，使后续请求不再携带旧 token
+api.interceptors.response.use((res) => res, async (error) => {
+    const original = error.config;
     if (error.response && (error.response.status === 401 || error.response.status === 403)) {
-        // 清理本地存储的 token，使后续请求不再携带旧 token
+        const isAuthRequest = original?.url?.startsWith('/api/auth/');
+        if (original && !original._retry && !isAuthRequest && getRefreshToken()) {
+            original._retry = true;
+            try {
+                const token = await refreshTokens();
+                original.headers = original.headers || {};
+                original.headers.Authorization = `Bearer ${token}`;
+                return api(original);
+            } catch (refreshError) {
+                clearToken();
+                return Promise.reject(error);
+            }
+        }
         clearToken();
     }
     return Promise.reject(error);
 });
 
+// 退出登录：通知后端吊销当前访问令牌与刷新令牌（失败不影响本地退出），然后清理本地存储
+export function logout() {
+    const token = getToken();
+    const refreshToken = getRefreshToken();
+    if (token || refreshToken) {
+        // 请求拦截器异步执行，届时本地 token 已被清理，因此在这里显式携带
+        const headers = token ? { Authorization: `Bearer ${token}` } : {};
+        api.post('/api/auth/logout', { refreshToken }, { headers }).catch(() => {});
+    }
+    clearToken();
+}
+
 export default api;
\ No newline at end of file
@@ -2,6 +2,7 @@
 const TOKEN_KEY = 'app_jwt_token';
 const USERNAME_KEY = 'app_username';
 const ROLES_KEY = 'app_user_roles';
+const REFRESH_KEY = 'app_refresh_token';
 
 /**
  * 解析 JWT Token 获取 payload 数据
@@ -57,8 +58,23 @@ export function getToken() {
     return localStorage.getItem(TOKEN_KEY);
 }
 
+/**
+ * 保存刷新令牌（访问令牌过期后用于换取新令牌，每次刷新后都会更新）
+ * @param {string} refreshToken - 后端返回的刷新令牌
+ */
+export function saveRefreshToken(refreshToken) {
+    if (!refreshToken) return;
+    localStorage.setItem(REFRESH_KEY, refreshToken);
+}
+
+// 获取刷新令牌
+export function getRefreshToken() {
+    return localStorage.getItem(REFRESH_KEY);
+}
+
 export function clearToken() {
     localStorage.removeItem(TOKEN_KEY);
+    localStorage.removeItem(REFRESH_KEY);
     localStorage.removeItem(USERNAME_KEY);
     localStorage.removeItem(ROLES_KEY);
 }
@@ -0,0 +1,104 @@
+package com.example.studentsystem.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hibernate 二级缓存（可选，默认关闭，app.cache.second-level.enabled=true 开启）。
+ * - 缓存 User 实体、User.roles 集合与 Student 实体，以及 UserRepository.findByUsername 的查询结果；
+ *   JCache 接口，Caffeine 实现，数据保存在本进程内存中，不同实例之间不同步。
+ * - 每个缓存区域单独配置容量与过期时间：app.cache.second-level.regions.<区域>.max-size / ttl-seconds。
+ *   多实例部署时，其它实例的修改要等本实例缓存过期后才可见，ttl 即最长的不一致时间。
+ * - 查询缓存依赖时间戳区域判断结果是否失效，该区域不设容量上限、不过期（Hibernate 的要求）。
+ * - 开启时同时开启 Hibernate 统计，命中率等数据见 GET /api/admin/metrics/second-level-cache。
+ * - hibernate-jcache 在类路径上时 Hibernate 会自动启用它，关闭时必须显式设置 use_second_level_cache=false。
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    static final String PREFIX = "app.cache.second-level";
+
+    public static final String USER_REGION = "user";
+    public static final String USER_ROLES_REGION = "user-roles";
+    public static final String STUDENT_REGION = "student";
+    public static final String USER_BY_USERNAME_REGION = "user-by-username";
+    // Hibernate 内置的查询结果区域（未指定区域的可缓存查询）与表更新时间戳区域
+    public static final String DEFAULT_QUERY_REGION = "default-query-results-region";
+    public static final String TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    /**
+     * 一个缓存区域及其默认容量 / 过期时间
+     */
+    public record Region(String name, boolean query, long defaultMaxSize, long defaultTtlSeconds) {}
+
+    public static final List<Region> REGIONS = List.of(
+            new Region(USER_REGION, false, 10_000, 600),
+            new Region(USER_ROLES_REGION, false, 10_000, 600),
+            new Region(STUDENT_REGION, false, 100_000, 600),
+            new Region(USER_BY_USERNAME_REGION, true, 10_000, 600),
+            new Region(DEFAULT_QUERY_REGION, true, 1_000, 600));
+
+    /**
+     * 按配置创建各区域的 JCache 缓存管理器，未知区域在启动时报错（missing_cache_strategy=fail）
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = PREFIX + ".enabled", havingValue = "true")
+    public CacheManager hibernateCacheManager(Environment env) {
+        CaffeineCachingProvider provider = new CaffeineCachingProvider();
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        for (Region region : REGIONS) {
+            String key = PREFIX + ".regions." + region.name();
+            long maxSize = env.getProperty(key + ".max-size", Long.class, region.defaultMaxSize());
+            long ttlSeconds = env.getProperty(key + ".ttl-seconds", Long.class, region.defaultTtlSeconds());
+            CaffeineConfiguration<Object, Object> config = configuration();
+            config.setMaximumSize(OptionalLong.of(maxSize));
+            if (ttlSeconds > 0) {
+                config.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+            }
+            cacheManager.createCache(region.name(), config);
+        }
+        cacheManager.createCache(TIMESTAMPS_REGION, configuration());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return properties -> {
+            CacheManager cacheManager = hibernateCacheManager.getIfAvailable();
+            if (cacheManager == null) {
+                properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, false);
+                properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+                return;
+            }
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            // 统计开启后 Hibernate 默认在每个 Session 结束时以 INFO 级别打印一次指标，关闭该日志
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    // 按引用存储（Hibernate 缓存的是拆解后的不可变条目，无需再序列化复制），不开启 JCache 自带统计
+    private static CaffeineConfiguration<Object, Object> configuration() {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        config.setStoreByValue(false);
+        config.setStatisticsEnabled(false);
+        return config;
+    }
+}
@@ -1,17 +1,28 @@
 package com.example.studentsystem.controller;
 
+import com.example.studentsystem.mail.MailDeliveryService;
+import com.example.studentsystem.mail.MailOutboxService;
 import com.example.studentsystem.model.Role;
-import com.example.studentsystem.repository.UserRepository;
-import com.example.studentsystem.repository.StudentRepository;
+import com.example.studentsystem.model.User;
+import com.example.studentsystem.security.BoundedPasswordEncoder;
+import com.example.studentsystem.security.UserDetailsCache;
+import com.example.studentsystem.security.jwt.JwtService;
+import com.example.studentsystem.security.jwt.TokenRevocationService;
+import com.example.studentsystem.service.AdminStatsService;
+import com.example.studentsystem.service.SecondLevelCacheService;
+import com.example.studentsystem.service.UserService;
+import com.example.studentsystem.verification.VerificationCodeStore;
+import com.example.studentsystem.verification.VerificationRateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * AdminController
@@ -24,70 +35,179 @@ public class AdminController {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
     
-    private final UserRepository userRepository;
-    private final StudentRepository studentRepository;
+    private final AdminStatsService adminStatsService;
+    private final UserService userService;
+    private final UserDetailsCache userDetailsCache;
+    private final JwtService jwtService;
+    private final TokenRevocationService tokenRevocationService;
+    private final BoundedPasswordEncoder passwordEncoder;
+    private final MailOutboxService mailOutboxService;
+    private final MailDeliveryService mailDeliveryService;
+    private final VerificationRateLimiter verificationRateLimiter;
+    private final VerificationCodeStore verificationCodeStore;
+    private final SecondLevelCacheService secondLevelCacheService;
 
-    public AdminController(UserRepository userRepository, StudentRepository studentRepository) {
-        this.userRepository = userRepository;
-        this.studentRepository = studentRepository;
+    public AdminController(AdminStatsService adminStatsService,
+                           UserService userService, UserDetailsCache userDetailsCache, JwtService jwtService,
+                           TokenRevocationService tokenRevocationService, BoundedPasswordEncoder passwordEncoder,
+                           MailOutboxService mailOutboxService, MailDeliveryService mailDeliveryService,
+                           VerificationRateLimiter verificationRateLimiter,
+                           VerificationCodeStore verificationCodeStore,
+                           SecondLevelCacheService secondLevelCacheService) {
+        this.adminStatsService = adminStatsService;
+        this.userService = userService;
+        this.userDetailsCache = userDetailsCache;
+        this.jwtService = jwtService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.passwordEncoder = passwordEncoder;
+        this.mailOutboxService = mailOutboxService;
+        this.mailDeliveryService = mailDeliveryService;
+        this.verificationRateLimiter = verificationRateLimiter;
+        this.verificationCodeStore = verificationCodeStore;
+        this.secondLevelCacheService = secondLevelCacheService;
     }
 
     /**
      * GET /api/admin/stats
-     * 获取系统统计信息
+     * 获取系统统计信息（内存计数，不查询数据库）
      * - 总用户数
      * - 普通用户数
      * - 管理员数
      * - 总学生记录数
      */
     @GetMapping("/stats")
-    public ResponseEntity<Map<String, Object>> getStats() {
+    public Map<String, Object> getStats() {
+        return adminStatsService.current();
+    }
+
+    /**
+     * GET /api/admin/stats/stream
+     * 统计推送（SSE）：连接后先收到 snapshot 事件，之后有变化时收到只含变化字段的 delta 事件
+     */
+    @GetMapping(value = "/stats/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStats() {
+        return adminStatsService.subscribe();
+    }
+
+    /**
+     * PUT /api/admin/users/{id}/roles
+     * 修改用户角色，请求体为角色数组，如 ["ROLE_USER", "ROLE_ADMIN"]
+     * - 修改后失效该用户的缓存，新角色在其下一个请求即生效
+     */
+    @PutMapping("/users/{id}/roles")
+    public ResponseEntity<?> updateRoles(@PathVariable Long id, @RequestBody Set<Role> roles) {
+        try {
+            User user = userService.updateRoles(id, roles);
+            logger.info("用户 {} 角色已更新为 {}", user.getUsername(), user.getRoles());
+            return ResponseEntity.ok(Map.of("id", user.getId(), "username", user.getUsername(), "roles", user.getRoles()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * POST /api/admin/users/{id}/revoke-tokens
+     * 强制下线：使该用户此前签发的全部 token 失效，用户需重新登录
+     */
+    @PostMapping("/users/{id}/revoke-tokens")
+    public ResponseEntity<?> revokeTokens(@PathVariable Long id) {
         try {
-            logger.info("开始加载统计数据...");
-            Map<String, Object> stats = new HashMap<>();
-            
-            // 统计用户信息
-            long totalUsers = userRepository.count();
-            logger.info("总用户数: {}", totalUsers);
-            
-            // 使用更简单的方式统计角色
-            long adminUsers = 0;
-            long normalUsers = 0;
-            try {
-                adminUsers = userRepository.countByRolesContaining(Role.ROLE_ADMIN);
-                logger.info("管理员数: {}", adminUsers);
-            } catch (Exception e) {
-                logger.warn("统计管理员数失败: {}", e.getMessage());
-            }
-            
-            try {
-                normalUsers = userRepository.countByRolesContaining(Role.ROLE_USER);
-                logger.info("普通用户数: {}", normalUsers);
-            } catch (Exception e) {
-                logger.warn("统计普通用户数失败: {}", e.getMessage());
-            }
-            
-            // 统计学生记录数
-            long totalStudents = studentRepository.count();
-            logger.info("学生记录数: {}", totalStudents);
-            
-            stats.put("totalUsers", totalUsers);
-            stats.put("adminUsers", adminUsers);
-            stats.put("normalUsers", normalUsers);
-            stats.put("totalStudents", totalStudents);
-            stats.put("timestamp", LocalDateTime.now());
-            
-            logger.info("统计数据加载成功");
-            return ResponseEntity.ok(stats);
-        } catch (Exception e) {
-            logger.error("加载统计数据失败", e);
-            Map<String, Object> errorStats = new HashMap<>();
-            errorStats.put("totalUsers", 0);
-            errorStats.put("adminUsers", 0);
-            errorStats.put("normalUsers", 0);
-            errorStats.put("totalStudents", 0);
-            errorStats.put("error", e.getMessage());
-            return ResponseEntity.ok(errorStats);
+            User user = userService.revokeTokens(id);
+            logger.info("用户 {} 的 token 已全部吊销", user.getUsername());
+            return ResponseEntity.ok(Map.of("id", user.getId(), "username", user.getUsername(),
+                    "tokensValidAfter", user.getTokensValidAfter()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    /**
+     * GET /api/admin/metrics/user-cache
+     * 用户缓存统计：当前条目数、命中/未命中次数、命中率、淘汰次数、加载耗时
+     */
+    @GetMapping("/metrics/user-cache")
+    public Map<String, Object> userCacheMetrics() {
+        return userDetailsCache.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/jwt-cache
+     * 已校验 token 缓存统计：命中即省去一次签名校验与 JSON 解析
+     */
+    @GetMapping("/metrics/jwt-cache")
+    public Map<String, Object> jwtCacheMetrics() {
+        return jwtService.verifiedCacheMetrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/token-revocation
+     * token 吊销列表统计：黑名单与用户截止时间条目数、布隆过滤器规模与命中/误判次数、最近同步时间
+     */
+    @GetMapping("/metrics/token-revocation")
+    public Map<String, Object> tokenRevocationMetrics() {
+        return tokenRevocationService.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/password-hashing
+     * 密码哈希线程池统计：线程数、活动与排队任务数、拒绝与超时次数、平均/最大哈希耗时与排队耗时
+     */
+    @GetMapping("/metrics/password-hashing")
+    public Map<String, Object> passwordHashingMetrics() {
+        return passwordEncoder.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/mail-outbox
+     * 邮件发件箱统计：各状态邮件数、入队/发送/重试/失败次数、入队到发送成功的平均耗时
+     */
+    @GetMapping("/metrics/mail-outbox")
+    public Map<String, Object> mailOutboxMetrics() {
+        return mailOutboxService.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/mail-providers
+     * 各发件邮箱的 SMTP 连接池统计：新建与复用的连接数、健康检查失败与重连次数、平均发送耗时
+     */
+    @GetMapping("/metrics/mail-providers")
+    public Map<String, Object> mailProviderMetrics() {
+        return mailDeliveryService.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/verification-rate-limit
+     * 验证码发送限流统计：跟踪中的邮箱与 IP 数、放行与各类拒绝次数、从数据库恢复状态的次数
+     */
+    @GetMapping("/metrics/verification-rate-limit")
+    public Map<String, Object> verificationRateLimitMetrics() {
+        return verificationRateLimiter.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/verification-codes
+     * 验证码存储统计：存储方式、当前记录数、过期记录清理的次数、删除行数与耗时
+     */
+    @GetMapping("/metrics/verification-codes")
+    public Map<String, Object> verificationCodeMetrics() {
+        return verificationCodeStore.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/admin-stats
+     * 统计计数维护情况：推送订阅数、已推送的增量事件数、对账次数与最近一次修正量
+     */
+    @GetMapping("/metrics/admin-stats")
+    public Map<String, Object> adminStatsMetrics() {
+        return adminStatsService.metrics();
+    }
+
+    /**
+     * GET /api/admin/metrics/second-level-cache
+     * Hibernate 二级缓存统计：各区域与查询缓存的命中、未命中、写入次数、命中率与当前条目数
+     */
+    @GetMapping("/metrics/second-level-cache")
+    public Map<String, Object> secondLevelCacheMetrics() {
+        return secondLevelCacheService.metrics();
+    }
 }
@@ -1,6 +1,8 @@
 package com.example.studentsystem.controller;
 
+import com.example.studentsystem.security.ClientIpResolver;
 import com.example.studentsystem.service.EmailVerificationService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -19,12 +21,14 @@ import java.util.Map;
 public class EmailVerificationController {
 
     private final EmailVerificationService emailVerificationService;
+    private final ClientIpResolver clientIpResolver;
 
     /**
      * 发送邮箱验证码
      */
     @PostMapping("/code/send")
-    public ResponseEntity<Map<String, Object>> sendCode(@RequestBody Map<String, String> request) {
+    public ResponseEntity<Map<String, Object>> sendCode(@RequestBody Map<String, String> request,
+                                                        HttpServletRequest httpRequest) {
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -38,10 +42,11 @@ public class EmailVerificationController {
             }
             
             // 根据场景调用不同的方法
+            String clientIp = clientIpResolver.resolve(httpRequest);
             if ("reset_password".equals(scene)) {
-                emailVerificationService.sendResetPasswordCode(email);
+                emailVerificationService.sendResetPasswordCode(email, clientIp);
             } else {
-                emailVerificationService.sendRegisterCode(email);
+                emailVerificationService.sendRegisterCode(email, clientIp);
             }
             
             response.put("code", 0);
@@ -1,37 +1,72 @@
 package com.example.studentsystem.controller;
 
+import com.example.studentsystem.dto.BulkCreateResult;
+import com.example.studentsystem.dto.CursorPage;
+import com.example.studentsystem.dto.ImportJobStatus;
+import com.example.studentsystem.dto.StudentImportResult;
+import com.example.studentsystem.dto.StudentPatchDto;
 import com.example.studentsystem.dto.StudentRequestDto;  // 导入请求DTO，用于接收学生数据
 import com.example.studentsystem.dto.StudentResponseDto;  // 导入响应DTO，用于返回学生数据
+import com.example.studentsystem.dto.StudentStatsDto;
 import com.example.studentsystem.model.User;  // 导入User实体
+import com.example.studentsystem.security.CurrentUser;  // 导入注解，用于获取当前登录用户
+import com.example.studentsystem.service.ImportJobService;
+import com.example.studentsystem.service.StudentExportService;
+import com.example.studentsystem.service.StudentImportService;
+import com.example.studentsystem.service.StudentSearchService;
+import com.example.studentsystem.service.StudentTemplateService;
 import com.example.studentsystem.service.StudentService;  // 导入服务接口，用于业务逻辑
 import org.springframework.data.domain.Page;  // 导入Page类，用于分页结果
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;  // 导入Pageable接口，用于分页参数
 import org.springframework.http.ResponseEntity;  // 导入ResponseEntity，用于构建HTTP响应
-import org.springframework.security.core.annotation.AuthenticationPrincipal;  // 导入注解，用于获取当前登录用户
 import org.springframework.web.bind.annotation.*;  // 导入Spring Web注解，用于REST API
 import org.springframework.web.multipart.MultipartFile;
-import org.apache.poi.ss.usermodel.*;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.HttpStatus;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import jakarta.validation.Valid;  // 导入Valid注解，用于验证请求体
 
 @RestController  // 标记此类为REST控制器，提供REST API
 @RequestMapping("/api/students")  // 指定基础请求路径为/api/students
 public class StudentController {
 
+    // 批量删除、修改、覆盖写入单次请求的最大条数
+    private static final int BULK_MAX_ITEMS = 10000;
+
     private final StudentService service;  // 声明StudentService依赖，用于业务逻辑操作
+    private final StudentImportService importService;  // Excel 导入服务
+    private final ImportJobService importJobService;  // 异步导入任务
+    private final StudentExportService exportService;  // 流式导出
+    private final StudentTemplateService templateService;  // 导入模板（缓存）
+    private final StudentSearchService searchService;  // 全文检索
 
-    // 构造器注入StudentService
-    public StudentController(StudentService service) {
+    // 构造器注入StudentService及导入、导出相关服务
+    public StudentController(StudentService service,
+                             StudentImportService importService,
+                             ImportJobService importJobService,
+                             StudentExportService exportService,
+                             StudentTemplateService templateService,
+                             StudentSearchService searchService) {
         this.service = service;
+        this.importService = importService;
+        this.importJobService = importJobService;
+        this.exportService = exportService;
+        this.templateService = templateService;
+        this.searchService = searchService;
     }
     // 定义分页响应记录，包含内容、总元素数、总页数和当前页码
     public record PagedResponse<T>(List<T> content, long totalElements, int totalPages, int pageNumber) {}
@@ -43,8 +78,8 @@ public class StudentController {
             // @RequestParam注解用于从HTTP请求的查询参数中提取值
             @RequestParam(required = false) String studentNo,
             Pageable pageable,
-            @AuthenticationPrincipal User currentUser) {
-            // @AuthenticationPrincipal 注解用于获取当前已认证的用户对象
+            @CurrentUser User currentUser) {
+            // @CurrentUser 注解用于获取当前已认证的用户（由 JWT 认证过滤器放入的身份转换而来，不查询数据库）
         Page<StudentResponseDto> page = service.list(pageable, studentNo, currentUser);
         // 自定义返回分页数据结构
         return new PagedResponse<>(
@@ -55,11 +90,64 @@ public class StudentController {
         );
     }
 
+    // 处理GET请求，游标分页列出学生（请求带 cursor 参数时进入此模式，首页传空字符串）
+    // 与页码分页不同，深度翻页同样只按索引定位，不使用 OFFSET；withTotal=true 时才额外统计总数
+    @GetMapping(params = "cursor")
+    public ResponseEntity<?> scroll(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String studentNo,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @CurrentUser User currentUser) {
+        try {
+            CursorPage<StudentResponseDto> page = service.scroll(cursor, Math.min(size, 200), sort, studentNo, withTotal, currentUser);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // 处理GET请求，全文检索学生：在学号、姓名、班级、手机号、地址、性别中按片段/前缀/模糊匹配，按相关度排序
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @CurrentUser User currentUser) throws IOException {
+        if (q.isBlank()) {
+            return ResponseEntity.badRequest().body("检索内容不能为空");
+        }
+        Optional<Page<StudentResponseDto>> result;
+        try {
+            result = searchService.search(
+                    q, PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), 100)), currentUser);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        if (result.isEmpty()) {
+            // 索引未启用或启动后仍在重建
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "10")
+                    .body("检索服务暂不可用，请稍后重试");
+        }
+        Page<StudentResponseDto> found = result.get();
+        return ResponseEntity.ok(new PagedResponse<>(
+                found.getContent(), found.getTotalElements(), found.getTotalPages(), found.getNumber()));
+    }
+
+    // 处理GET请求，统计当前用户的学生：总数、性别、班级（前 10 个）与年龄段分布
+    // 由分组聚合查询计算，响应只有几百字节，仪表盘不再需要拉取全部学生在前端计数
+    @GetMapping("/stats")
+    public StudentStatsDto stats(@CurrentUser User currentUser) {
+        return service.stats(currentUser);
+    }
+
     @GetMapping("/{id}")  // 处理GET请求，根据ID获取单个学生
     public ResponseEntity<StudentResponseDto> get(
 
             @PathVariable Long id,  // @PathVariable注解用于从URL路径中提取变量值，此处提取学生ID
-            @AuthenticationPrincipal User currentUser) {
+            @CurrentUser User currentUser) {
         // 调用服务层获取学生，若存在返回200 ，否则返回404
         return service.getById(id, currentUser).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
@@ -68,7 +156,7 @@ public class StudentController {
     public ResponseEntity<StudentResponseDto> create(
             // @Valid注解用于验证请求体，@RequestBody注解用于接收请求体
             @Valid @RequestBody StudentRequestDto dto,
-            @AuthenticationPrincipal User currentUser) {
+            @CurrentUser User currentUser) {
         // 调用服务层创建学生，返回201 Created
         StudentResponseDto created = service.create(dto, currentUser);
         return ResponseEntity.ok(created);
@@ -78,7 +166,7 @@ public class StudentController {
     public ResponseEntity<StudentResponseDto> update(
             @PathVariable Long id,
             @Valid @RequestBody StudentRequestDto dto,
-            @AuthenticationPrincipal User currentUser) {
+            @CurrentUser User currentUser) {
         // 使用@Valid验证请求体，调用服务层更新学生，若成功返回200 OK，否则返回404 Not Found
         return service.update(id, dto, currentUser).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
@@ -86,7 +174,7 @@ public class StudentController {
     @DeleteMapping("/{id}")  // 处理DELETE请求，删除学生
     public ResponseEntity<Void> delete(
             @PathVariable Long id,
-            @AuthenticationPrincipal User currentUser) {
+            @CurrentUser User currentUser) {
         // 调用服务层删除学生，若不存在返回404 Not Found，否则返回204 No Content
         if (!service.delete(id, currentUser)) return ResponseEntity.notFound().build();
         return ResponseEntity.noContent().build();
@@ -96,135 +184,160 @@ public class StudentController {
     public ResponseEntity<String> batchDelete(
             //批量-list列表
             @RequestBody List<Long> ids,
-            @AuthenticationPrincipal User currentUser) {
+            @CurrentUser User currentUser) {
         if (ids == null || ids.isEmpty()) {
             return ResponseEntity.badRequest().body("删除列表不能为空");
         }
-        int deleted = 0;
-        // 遍历id列表
-        for (Long id : ids) {
-            if (service.delete(id, currentUser)) {
-                deleted++;
-            }
+        if (ids.size() > BULK_MAX_ITEMS || ids.contains(null)) {
+            return ResponseEntity.badRequest().body("删除列表最多 " + BULK_MAX_ITEMS + " 个有效ID");
         }
+        // 按段执行 DELETE ... WHERE user_id = ? AND id IN (...)，不再逐个查询、删除
+        int deleted = service.bulkDelete(ids, currentUser).succeeded();
         return ResponseEntity.ok("成功删除 " + deleted + " 条学生记录");
     }
+
+    // 处理DELETE请求，批量删除学生并返回每个ID的结果（DELETED / NOT_FOUND）
+    @DeleteMapping("/bulk")
+    public ResponseEntity<?> bulkDelete(
+            @RequestBody List<Long> ids,
+            @CurrentUser User currentUser) {
+        if (ids == null || ids.isEmpty() || ids.size() > BULK_MAX_ITEMS || ids.contains(null)) {
+            return ResponseEntity.badRequest().body("ID列表不能为空，最多 " + BULK_MAX_ITEMS + " 个");
+        }
+        return ResponseEntity.ok(service.bulkDelete(ids, currentUser));
+    }
+
+    // 处理PATCH请求，批量修改学生的班级、性别、地址（为 null 的字段不修改），返回每个ID的结果（UPDATED / NOT_FOUND）
+    @PatchMapping("/bulk")
+    public ResponseEntity<?> bulkPatch(
+            @Valid @RequestBody StudentPatchDto patch,
+            @CurrentUser User currentUser) {
+        if (patch.getIds().size() > BULK_MAX_ITEMS || patch.getIds().contains(null)) {
+            return ResponseEntity.badRequest().body("ID列表最多 " + BULK_MAX_ITEMS + " 个有效ID");
+        }
+        if (patch.isEmpty()) {
+            return ResponseEntity.badRequest().body("至少需要一个要修改的字段");
+        }
+        return ResponseEntity.ok(service.bulkPatch(patch, currentUser));
+    }
+
+    // 处理PUT请求，按学号批量覆盖写入：已存在的学生更新、不存在的创建，逐项校验，返回每一项的结果
+    @PutMapping("/bulk")
+    public ResponseEntity<?> bulkUpsert(
+            @RequestBody List<StudentRequestDto> students,
+            @CurrentUser User currentUser) {
+        if (students == null || students.isEmpty() || students.size() > BULK_MAX_ITEMS) {
+            return ResponseEntity.badRequest().body("学生列表不能为空，最多 " + BULK_MAX_ITEMS + " 条");
+        }
+        return ResponseEntity.ok(service.bulkUpsert(students, currentUser));
+    }
     // 处理POST请求，支持Excel一键导入学生数据
+    // mode=dom（默认）整体加载工作簿并返回文本提示；mode=stream 逐行流式解析 .xlsx，返回包含吞吐与堆峰值的导入结果
     @PostMapping("/import")
-    public ResponseEntity<String> importStudents(
+    public ResponseEntity<?> importStudents(
             @RequestParam("file") MultipartFile file,
-            @AuthenticationPrincipal User currentUser) {
+            @RequestParam(defaultValue = "dom") String mode,
+            @CurrentUser User currentUser) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body("文件不能为空");
         }
-        try (InputStream in = file.getInputStream(); Workbook workbook = WorkbookFactory.create(in)) {
-            Sheet sheet = workbook.getSheetAt(0);
-            int imported = 0;
-            for (int i = 1; i <= sheet.getLastRowNum(); i++) {// 从第2行开始，跳过表头
-                // 获取当前行
-                Row row = sheet.getRow(i);
-                if (row == null) continue;
-                
-                // 读取所有字段：姓名、学号、性别、出生日期、班级、监护人手机号、地址
-                Cell nameCell = row.getCell(0);      // 第1列：姓名
-                Cell noCell = row.getCell(1);        // 第2列：学号
-                Cell genderCell = row.getCell(2);    // 第3列：性别
-                Cell dobCell = row.getCell(3);       // 第4列：出生日期
-                Cell classCell = row.getCell(4);     // 第5列：班级
-                Cell phoneCell = row.getCell(5);     // 第6列：监护人手机号
-                Cell addressCell = row.getCell(6);   // 第7列：地址
-                
-                if (nameCell == null && noCell == null) continue;
-
-                StudentRequestDto dto = new StudentRequestDto();
-                dto.setName(getStringCell(nameCell));
-                dto.setStudentNo(getStringCell(noCell));
-                dto.setGender(getStringCell(genderCell));        // 性别
-                
-                // 解析出生日期（yyyy-MM-dd 格式）
-                String dobStr = getStringCell(dobCell);
-                if (dobStr != null && !dobStr.isBlank()) {
-                    try {
-                        dto.setDob(LocalDate.parse(dobStr, DateTimeFormatter.ISO_LOCAL_DATE));
-                    } catch (Exception e) {
-                        // 日期格式错误，忽略
-                    }
+        try {
+            if ("stream".equalsIgnoreCase(mode)) {
+                StudentImportResult result = importService.importStreaming(file, currentUser);
+                return ResponseEntity.ok(result);
+            }
+            try (InputStream in = file.getInputStream()) {
+                BulkCreateResult written = importService.importWorkbook(in, currentUser);
+                String message = "成功导入 " + written.inserted() + " 条学生记录";
+                if (written.duplicates() > 0) {
+                    message += "，跳过重复学号 " + written.duplicates() + " 条";
                 }
-                
-                dto.setClassName(getStringCell(classCell));      // 班级
-                dto.setPhone(getStringCell(phoneCell));          // 监护人手机号
-                dto.setAddress(getStringCell(addressCell));      // 地址
-                
-                if (dto.getStudentNo() == null || dto.getStudentNo().isBlank()) {
-                    continue; // 学号必填
+                if (written.failed() > 0) {
+                    message += "，写入失败 " + written.failed() + " 条";
                 }
-                service.create(dto, currentUser);
-                imported++;
+                return ResponseEntity.ok(message);
             }
-            return ResponseEntity.ok("成功导入 " + imported + " 条学生记录");
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("导入失败: " + e.getMessage());
         }
     }
-    // 处理GET请求，下载Excel导入模板
-    @GetMapping("/template")
-    public ResponseEntity<byte[]> downloadTemplate() {
-        try (Workbook workbook = WorkbookFactory.create(true)) { // true -> XSSF (.xlsx)
-            Sheet sheet = workbook.createSheet("Students");
-            //第1行：表头
-            Row header = sheet.createRow(0);
-            header.createCell(0).setCellValue("姓名");
-            header.createCell(1).setCellValue("学号");
-            header.createCell(2).setCellValue("性别");
-            header.createCell(3).setCellValue("出生日期");
-            header.createCell(4).setCellValue("班级");
-            header.createCell(5).setCellValue("监护人手机号");
-            header.createCell(6).setCellValue("地址");
-            
-            //第2行：给出示例数据
-            Row example = sheet.createRow(1);
-            example.createCell(0).setCellValue("张三");
-            example.createCell(1).setCellValue("2025001");
-            example.createCell(2).setCellValue("男");
-            example.createCell(3).setCellValue("2005-06-15");
-            example.createCell(4).setCellValue("高一1班");
-            example.createCell(5).setCellValue("13800001111");
-            example.createCell(6).setCellValue("北京市朝阳区");
-            
-            for (int i = 0; i <= 6; i++) {
-                sheet.autoSizeColumn(i);
-            }
-
-            java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-            workbook.write(bos);
-            byte[] bytes = bos.toByteArray();
-            // 设置响应头，提示下载文件
-            String fileName = URLEncoder.encode("student-import-template.xlsx", StandardCharsets.UTF_8);
-            HttpHeaders headers = new HttpHeaders();
-            // 设置内容类型为Excel文件
-            headers.setContentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"));
-            headers.setContentLength(bytes.length);
-            headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
-            // 返回响应
-            return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+    // 处理POST请求，提交异步导入任务：立即返回任务ID（202），解析与写入在后台线程池执行
+    @PostMapping("/import/jobs")
+    public ResponseEntity<?> submitImportJob(
+            @RequestParam("file") MultipartFile file,
+            @CurrentUser User currentUser) {
+        if (file.isEmpty()) {
+            return ResponseEntity.badRequest().body("文件不能为空");
+        }
+        try {
+            ImportJobStatus job = importJobService.submit(file, currentUser);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            // 排队任务已满，提示客户端稍后重试
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body("导入任务繁忙，请稍后再试");
         } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(null);
+            return ResponseEntity.badRequest().body("导入失败: " + e.getMessage());
         }
     }
-    // 辅助方法:获取单元格字符串值,处理不同类型的单元格
-    private static String getStringCell(Cell cell) {
-        if (cell == null) return null;
-        if (cell.getCellType() == CellType.STRING) return cell.getStringCellValue().trim();
-        if (cell.getCellType() == CellType.NUMERIC) {
-            double v = cell.getNumericCellValue();
-            long lv = (long) v;
-            if (Math.abs(v - lv) < 1e-6) {
-                return String.valueOf(lv);
-            }
-            return String.valueOf(v);
+
+    // 处理GET请求，列出当前用户的导入任务
+    @GetMapping("/import/jobs")
+    public List<ImportJobStatus> listImportJobs(@CurrentUser User currentUser) {
+        return importJobService.list(currentUser);
+    }
+
+    // 处理GET请求，查询导入任务进度（已解析、已写入、跳过、失败行号）
+    @GetMapping("/import/jobs/{jobId}")
+    public ResponseEntity<ImportJobStatus> getImportJob(
+            @PathVariable String jobId,
+            @CurrentUser User currentUser) {
+        return importJobService.get(jobId, currentUser).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    // 处理DELETE请求，取消导入任务（已提交的批次保留）
+    @DeleteMapping("/import/jobs/{jobId}")
+    public ResponseEntity<ImportJobStatus> cancelImportJob(
+            @PathVariable String jobId,
+            @CurrentUser User currentUser) {
+        return importJobService.cancel(jobId, currentUser).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+    }
+
+    // 处理GET请求，导出当前用户的全部学生：format=xlsx（默认）或 csv，数据分段查询并直接写入响应流
+    @GetMapping("/export")
+    public void exportStudents(
+            @RequestParam(defaultValue = "xlsx") String format,
+            @CurrentUser User currentUser,
+            HttpServletResponse response) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(format);
+        String fileName = URLEncoder.encode("students-" + LocalDate.now() + (csv ? ".csv" : ".xlsx"), StandardCharsets.UTF_8);
+        response.setContentType(csv ? "text/csv;charset=UTF-8"
+                : "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+        if (csv) {
+            exportService.exportCsv(currentUser, response.getOutputStream());
+        } else {
+            exportService.exportXlsx(currentUser, response.getOutputStream());
         }
-        // 使用 DataFormatter 替代已弃用的 setCellType 方法
-        return new org.apache.poi.ss.usermodel.DataFormatter().formatCellValue(cell).trim();
+    }
+
+    // 处理GET请求，下载Excel导入模板
+    // 模板字节只生成一次；响应携带 ETag、Last-Modified 与 Cache-Control，
+    // 客户端带 If-None-Match / If-Modified-Since 再次请求时由 Spring 直接返回 304（不含响应体）
+    @GetMapping("/template")
+    public ResponseEntity<byte[]> downloadTemplate() {
+        StudentTemplateService.Template template = templateService.get();
+        // 设置响应头，提示下载文件
+        String fileName = URLEncoder.encode("student-import-template.xlsx", StandardCharsets.UTF_8);
+        return ResponseEntity.ok()
+                // 设置内容类型为Excel文件
+                .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
+                .contentLength(template.bytes().length)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+                .eTag(template.etag())
+                .lastModified(template.lastModified())
+                .cacheControl(CacheControl.maxAge(Duration.ofDays(1)).cachePrivate())
+                .body(template.bytes());
     }
 }
\ No newline at end of file
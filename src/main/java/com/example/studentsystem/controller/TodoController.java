@@ -3,7 +3,8 @@ package com.example.studentsystem.controller;
 import com.example.studentsystem.dto.TodoItemDto;
 import com.example.studentsystem.service.TodoService;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import com.example.studentsystem.security.AuthenticatedUser;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -30,12 +31,12 @@ public class TodoController {
 
     /**
      * 获取当前用户的所有待办事项列表
-     * @param authentication 当前用户的认证信息
+     * @param currentUser 当前登录用户
      * @return 该用户的所有待办事项列表
      */
     @GetMapping
-    public List<TodoItemDto> list(Authentication authentication) {
-        String username = authentication.getName();
+    public List<TodoItemDto> list(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        String username = currentUser.username();
         return todoService.listForUser(username);
     }
 
@@ -48,17 +49,17 @@ public class TodoController {
     /**
      * 创建新的待办事项
      * @param req 创建待办事项请求，包含待办事项的文本内容
-     * @param authentication 当前用户的认证信息
+     * @param currentUser 当前登录用户
      * @return 返回创建成功的待办事项信息，如果请求参数无效则返回 400 Bad Request
      */
     @PostMapping
     public ResponseEntity<TodoItemDto> create(@RequestBody CreateTodoRequest req,
-                                              Authentication authentication) {
+                                              @AuthenticationPrincipal AuthenticatedUser currentUser) {
         // 验证请求参数，文本内容不能为空或只包含空白符
         if (req == null || req.text() == null || req.text().trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
-        String username = authentication.getName();
+        String username = currentUser.username();
         TodoItemDto dto = todoService.addForUser(username, req.text().trim());
         return ResponseEntity.ok(dto);
     }
@@ -66,12 +67,12 @@ public class TodoController {
     /**
      * 删除指定的待办事项
      * @param id 待办事项的唯一标识
-     * @param authentication 当前用户的认证信息
+     * @param currentUser 当前登录用户
      * @return 删除成功返回 204 No Content 响应
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id, Authentication authentication) {
-        String username = authentication.getName();
+    public ResponseEntity<Void> delete(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        String username = currentUser.username();
         todoService.deleteForUser(username, id);
         return ResponseEntity.noContent().build();
     }
@@ -80,12 +81,12 @@ public class TodoController {
      * 切换待办事项的完成状态
      * 若待办事项未完成，则标记为已完成；若已完成，则标记为未完成。
      * @param id 待办事项的唯一标识
-     * @param authentication 当前用户的认证信息
+     * @param currentUser 当前登录用户
      * @return 返回状态切换后的待办事项信息
      */
     @PatchMapping("/{id}/toggle")
-    public ResponseEntity<TodoItemDto> toggle(@PathVariable Long id, Authentication authentication) {
-        String username = authentication.getName();
+    public ResponseEntity<TodoItemDto> toggle(@PathVariable Long id, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        String username = currentUser.username();
         TodoItemDto dto = todoService.toggleDone(username, id);
         return ResponseEntity.ok(dto);
     }
@@ -0,0 +1,22 @@
+package com.example.studentsystem.dto;
+
+import java.util.List;
+
+/**
+ * 批量创建学生的结果。
+ * @param inserted   实际写入的条数
+ * @param duplicates 因学号已存在（数据库中或同一批次内重复）而跳过的条数
+ * @param failed     写入数据库失败（如字段超长）的条数
+ * @param chunks     每个批次的写入耗时，按提交顺序排列
+ */
+public record BulkCreateResult(int inserted, int duplicates, int failed, List<ChunkTiming> chunks) {
+
+    /**
+     * 单个批次的提交耗时。
+     * @param index  批次序号（从 1 开始）
+     * @param rows   批次内的行数
+     * @param millis 从发送批量语句到事务提交完成的耗时（毫秒）
+     */
+    public record ChunkTiming(int index, int rows, long millis) {
+    }
+}
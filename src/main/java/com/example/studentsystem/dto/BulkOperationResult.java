@@ -0,0 +1,35 @@
+package com.example.studentsystem.dto;
+
+import java.util.List;
+
+/**
+ * 批量删除、批量修改、批量覆盖写入的结果。
+ * @param succeeded 成功的条数
+ * @param failed    未成功的条数（不存在、校验失败、请求内重复或写入失败）
+ * @param outcomes  逐项结果，与请求中的顺序一致（重复的 ID 只保留第一次出现）
+ */
+public record BulkOperationResult(int succeeded, int failed, List<Outcome> outcomes) {
+
+    public enum Status {
+        CREATED, UPDATED, DELETED, NOT_FOUND, INVALID, DUPLICATE, FAILED;
+
+        public boolean succeeded() {
+            return this == CREATED || this == UPDATED || this == DELETED;
+        }
+    }
+
+    /**
+     * 单项结果。
+     * @param id        学生 ID（不存在或写入失败时可能为 null）
+     * @param studentNo 学号（不存在时为 null）
+     * @param status    结果
+     * @param message   未成功的原因
+     */
+    public record Outcome(Long id, String studentNo, Status status, String message) {
+    }
+
+    public static BulkOperationResult of(List<Outcome> outcomes) {
+        int succeeded = (int) outcomes.stream().filter(o -> o.status().succeeded()).count();
+        return new BulkOperationResult(succeeded, outcomes.size() - succeeded, List.copyOf(outcomes));
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.studentsystem.dto;
+
+import java.util.List;
+
+/**
+ * 基于游标（keyset）的分页结果。
+ * @param content       当前页数据
+ * @param nextCursor    下一页游标，没有更多数据时为 null
+ * @param hasNext       是否还有下一页
+ * @param totalElements 总条数，仅在请求 withTotal=true 时返回，否则为 null（省去 count 查询）
+ */
+public record CursorPage<T>(List<T> content, String nextCursor, boolean hasNext, Long totalElements) {
+}
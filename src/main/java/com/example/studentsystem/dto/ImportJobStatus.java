@@ -0,0 +1,28 @@
+package com.example.studentsystem.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 异步导入任务的进度快照，用于轮询接口返回。
+ * - status：QUEUED / RUNNING / COMPLETED / FAILED / CANCELLED
+ * - parsed：已解析的数据行数；inserted：已提交入库的行数
+ * - skipped：学号为空或学号重复而跳过的行数
+ * - failed / failedRows：写入失败的行数及行号（Excel 显示行号，最多保留前若干条）
+ */
+public record ImportJobStatus(String jobId,
+                              String fileName,
+                              String status,
+                              int parsed,
+                              int inserted,
+                              int skipped,
+                              int failed,
+                              List<FailedRow> failedRows,
+                              String error,
+                              Instant createdAt,
+                              Instant startedAt,
+                              Instant finishedAt) {
+
+    public record FailedRow(int row, String reason) {
+    }
+}
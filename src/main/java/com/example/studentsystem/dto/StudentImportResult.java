@@ -0,0 +1,32 @@
+package com.example.studentsystem.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Excel 导入结果（流式导入模式返回），除导入条数外附带吞吐与内存指标，便于评估 Pod 规格。
+ * - rowsRead：读取到的数据行数（不含表头）
+ * - imported / skipped：成功导入与跳过（学号为空等）的行数
+ * - duplicates：学号已存在或文件内重复而未写入的行数
+ * - failed：写入数据库失败的行数
+ * - chunks：批量写入的每批耗时
+ * - rowsPerSecond：按总耗时计算的处理速率
+ * - peakHeapBytes：导入期间 JVM 堆内存峰值（各堆内存池峰值之和，进程级指标，并发导入时会相互叠加）
+ */
+@Setter
+@Getter
+public class StudentImportResult {
+    private String mode;
+    private int rowsRead;
+    private int imported;
+    private int skipped;
+    private int duplicates;
+    private int failed;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private long peakHeapBytes;
+    private List<BulkCreateResult.ChunkTiming> chunks;
+    private String message;
+}
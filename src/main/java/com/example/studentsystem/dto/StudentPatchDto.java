@@ -0,0 +1,31 @@
+package com.example.studentsystem.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * 批量修改学生字段的请求：对 ids 中属于当前用户的学生统一设置给定字段。
+ * 字段为 null 表示不修改，空字符串表示清空；学号、姓名等逐个学生不同的字段不支持批量修改。
+ */
+@Setter
+@Getter
+public class StudentPatchDto {
+    @NotEmpty(message = "学生ID列表不能为空")
+    private List<Long> ids;
+
+    @Size(max = 100)
+    private String className;
+
+    private String gender;
+
+    private String address;
+
+    // 是否没有任何要修改的字段
+    public boolean isEmpty() {
+        return className == null && gender == null && address == null;
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.studentsystem.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.time.LocalDate;
@@ -8,9 +10,12 @@ import java.time.LocalDate;
     /*这是一个数据传输对象（DTO）类，用于封装学生响应数据，把持久化的学生数据返回给客户端（序列化为 JSON 等）。
     提供所有字段的标准getter和setter方法，用于序列化响应数据（如JSON）。
     无验证注解，因为它是响应对象，不需要输入验证；常用于从实体映射数据返回给客户端。
+    全参构造器供 StudentRepository 的 JPQL 构造器表达式（select new ...）直接创建，参数顺序与字段顺序一致。
      */
 @Setter
 @Getter
+@NoArgsConstructor
+@AllArgsConstructor
 public class StudentResponseDto {
     private Long id;
     private String studentNo;
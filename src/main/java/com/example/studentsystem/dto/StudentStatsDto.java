@@ -0,0 +1,22 @@
+package com.example.studentsystem.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 当前用户的学生统计（个人主页），由分组聚合查询得到，大小与学生数量无关。
+ * @param total        学生总数
+ * @param genders      各性别人数（未填写的计入“未知”）
+ * @param classes      人数最多的若干班级，按人数降序
+ * @param otherClasses 其余班级的学生总数
+ * @param ageGroups    各年龄段人数（按出生日期计算周岁，未填写的计入“未知”），按年龄段顺序
+ */
+public record StudentStatsDto(long total, Map<String, Long> genders, List<ClassCount> classes,
+                              long otherClasses, Map<String, Long> ageGroups) {
+
+    /**
+     * @param className 班级（未填写为“未分班”）
+     * @param count     人数
+     */
+    public record ClassCount(String className, long count) {}
+}
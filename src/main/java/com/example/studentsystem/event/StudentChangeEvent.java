@@ -0,0 +1,61 @@
+package com.example.studentsystem.event;
+
+import java.util.List;
+
+/**
+ * 学生数据变更事件，由 StudentServiceImpl 与 StudentBulkInserter 在写入所在的事务内（提交前）发布。
+ * 监听方应使用 @TransactionalEventListener(fallbackExecution = true)，在事务提交后处理。
+ * 必须在事务内发布：管理员统计据此识别“已提交但尚未计入”的写入（见 AdminStatsService.reconcile）。
+ * @param type              变更类型
+ * @param userId            所属用户 ID
+ * @param studentId         学生 ID（批量类型时为 null，批量写入不回读主键）
+ * @param studentNo         变更后的学号（DELETED 时为被删除的学号）
+ * @param previousStudentNo 更新前的学号（仅 UPDATED）
+ * @param studentNos        批量写入成功的学号（BULK_CREATED），或被删除的学号（BULK_DELETED）
+ * @param studentIds        批量更新或删除的学生 ID（BULK_UPDATED、BULK_DELETED）
+ */
+public record StudentChangeEvent(Type type, Long userId, Long studentId, String studentNo,
+                                 String previousStudentNo, List<String> studentNos, List<Long> studentIds) {
+
+    /**
+     * BULK_UPDATED 不改变学号（批量修改字段与按学号覆盖写入都以学号定位），学号索引无需处理
+     */
+    public enum Type {
+        CREATED, UPDATED, DELETED, BULK_CREATED, BULK_UPDATED, BULK_DELETED
+    }
+
+    public static StudentChangeEvent created(Long userId, Long studentId, String studentNo) {
+        return new StudentChangeEvent(Type.CREATED, userId, studentId, studentNo, null, List.of(), List.of());
+    }
+
+    public static StudentChangeEvent updated(Long userId, Long studentId, String previousStudentNo, String studentNo) {
+        return new StudentChangeEvent(Type.UPDATED, userId, studentId, studentNo, previousStudentNo, List.of(), List.of());
+    }
+
+    public static StudentChangeEvent deleted(Long userId, Long studentId, String studentNo) {
+        return new StudentChangeEvent(Type.DELETED, userId, studentId, studentNo, null, List.of(), List.of());
+    }
+
+    public static StudentChangeEvent bulkCreated(Long userId, List<String> studentNos) {
+        return new StudentChangeEvent(Type.BULK_CREATED, userId, null, null, null, List.copyOf(studentNos), List.of());
+    }
+
+    public static StudentChangeEvent bulkUpdated(Long userId, List<Long> studentIds) {
+        return new StudentChangeEvent(Type.BULK_UPDATED, userId, null, null, null, List.of(), List.copyOf(studentIds));
+    }
+
+    public static StudentChangeEvent bulkDeleted(Long userId, List<Long> studentIds, List<String> studentNos) {
+        return new StudentChangeEvent(Type.BULK_DELETED, userId, null, null, null, List.copyOf(studentNos), List.copyOf(studentIds));
+    }
+
+    /**
+     * 本次变更涉及的学生数量
+     */
+    public int count() {
+        return switch (type) {
+            case BULK_CREATED -> studentNos.size();
+            case BULK_UPDATED, BULK_DELETED -> studentIds.size();
+            default -> 1;
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.studentsystem.event;
+
+import com.example.studentsystem.model.Role;
+
+import java.util.Set;
+
+/**
+ * 用户变更事件，由 UserService 在创建用户、修改角色的事务内（提交前）发布，供管理员统计等监听方增量更新。
+ * 监听方应使用 @TransactionalEventListener(fallbackExecution = true)，与 StudentChangeEvent 相同。
+ * @param type          变更类型
+ * @param userId        用户 ID
+ * @param previousRoles 变更前的角色（CREATED 时为空集合）
+ * @param roles         变更后的角色
+ */
+public record UserChangeEvent(Type type, Long userId, Set<Role> previousRoles, Set<Role> roles) {
+
+    public enum Type {
+        CREATED, ROLES_CHANGED
+    }
+
+    public static UserChangeEvent created(Long userId, Set<Role> roles) {
+        return new UserChangeEvent(Type.CREATED, userId, Set.of(), Set.copyOf(roles));
+    }
+
+    public static UserChangeEvent rolesChanged(Long userId, Set<Role> previousRoles, Set<Role> roles) {
+        return new UserChangeEvent(Type.ROLES_CHANGED, userId, Set.copyOf(previousRoles), Set.copyOf(roles));
+    }
+}
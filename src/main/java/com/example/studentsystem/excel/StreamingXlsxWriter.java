@@ -0,0 +1,126 @@
+package com.example.studentsystem.excel;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 单工作表 .xlsx 流式写入器。
+ * - 直接按 SpreadsheetML 结构写 ZIP：固定的包结构部件先写出，工作表 XML 随 writeRow 边生成边压缩输出，
+ *   不在内存中保留行数据，也不像 SXSSFWorkbook 那样先写临时文件再在 write() 时整体打包。
+ * - 单元格统一写为内联字符串（inlineStr），无需共享字符串表；导出的文件可直接再次导入。
+ * - close() 只结束 ZIP 结构，不关闭底层输出流（由 Servlet 容器管理）。
+ */
+public final class StreamingXlsxWriter implements Closeable {
+
+    private static final String XML_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    private static final String MAIN_NS = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String REL_NS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    private static final String DOC_REL_NS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    private final ZipOutputStream zip;
+    private final Writer sheet;
+    private int rowCount;
+    private boolean closed;
+
+    public StreamingXlsxWriter(OutputStream out, String sheetName) throws IOException {
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        writeEntry("[Content_Types].xml", XML_HEADER
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                + "</Types>");
+        writeEntry("_rels/.rels", XML_HEADER
+                + "<Relationships xmlns=\"" + REL_NS + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + DOC_REL_NS + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        writeEntry("xl/workbook.xml", XML_HEADER
+                + "<workbook xmlns=\"" + MAIN_NS + "\" xmlns:r=\"" + DOC_REL_NS + "\">"
+                + "<sheets><sheet name=\"" + escape(sheetName) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+                + "</workbook>");
+        writeEntry("xl/_rels/workbook.xml.rels", XML_HEADER
+                + "<Relationships xmlns=\"" + REL_NS + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + DOC_REL_NS + "/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                + "</Relationships>");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        this.sheet = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8));
+        sheet.write(XML_HEADER);
+        sheet.write("<worksheet xmlns=\"" + MAIN_NS + "\"><sheetData>");
+    }
+
+    /**
+     * 追加一行，null 值写为空单元格。
+     */
+    public void writeRow(String... values) throws IOException {
+        int r = ++rowCount;
+        sheet.write("<row r=\"");
+        sheet.write(Integer.toString(r));
+        sheet.write("\">");
+        for (int c = 0; c < values.length; c++) {
+            String value = values[c];
+            if (value == null || value.isEmpty()) continue;
+            sheet.write("<c r=\"");
+            sheet.write(columnName(c));
+            sheet.write(Integer.toString(r));
+            sheet.write("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+            sheet.write(escape(value));
+            sheet.write("</t></is></c>");
+        }
+        sheet.write("</row>");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        sheet.write("</sheetData></worksheet>");
+        sheet.flush();
+        zip.closeEntry();
+        zip.finish();
+        zip.flush();
+    }
+
+    private void writeEntry(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    // 列号转列名：0 -> A, 25 -> Z, 26 -> AA
+    private static String columnName(int index) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = index; i >= 0; i = i / 26 - 1) {
+            sb.insert(0, (char) ('A' + i % 26));
+        }
+        return sb.toString();
+    }
+
+    // XML 转义，并丢弃 XML 1.0 不允许的控制字符
+    private static String escape(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                default -> {
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                        sb.append(ch);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.studentsystem.excel;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * 基于 SAX 事件的 .xlsx 流式读取器。
+ * - 逐行解析第一个工作表，不构建 XSSFWorkbook 的 DOM，内存占用与文件行数无关。
+ * - 每一行以固定长度的单元格文本数组回调给 RowHandler，文本由 DataFormatter 按单元格格式生成
+ *   （例如日期单元格若为 yyyy-mm-dd 格式则得到 "2005-06-15"）。
+ * - 共享字符串表（ReadOnlySharedStringsTable）仍会整体加载，其大小取决于去重后的文本数量而非行数。
+ */
+public final class StudentExcelStreamReader {
+
+    /**
+     * 行回调：rowNumber 为工作表中的行号（从 0 开始，0 为表头），cells 长度固定为 columnCount。
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void row(int rowNumber, String[] cells);
+    }
+
+    private StudentExcelStreamReader() {
+    }
+
+    /**
+     * 流式读取文件中的第一个工作表。
+     * @param file        .xlsx 文件（以只读方式打开，避免整包加载到内存）
+     * @param columnCount 每行读取的列数，超出的列被忽略
+     * @param handler     行回调
+     */
+    public static void read(File file, int columnCount, RowHandler handler) throws Exception {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader reader = new XSSFReader(pkg);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(
+                        styles, null, strings, new RowCollector(columnCount, handler), new DataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        }
+    }
+
+    /**
+     * 将 SAX 单元格事件聚合为整行后回调，每行复用同一个缓冲数组的副本。
+     */
+    private static final class RowCollector implements XSSFSheetXMLHandler.SheetContentsHandler {
+        private final int columnCount;
+        private final RowHandler handler;
+        private final String[] cells;
+        private int lastColumn = -1;
+
+        private RowCollector(int columnCount, RowHandler handler) {
+            this.columnCount = columnCount;
+            this.handler = handler;
+            this.cells = new String[columnCount];
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+            lastColumn = -1;
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            handler.row(rowNum, cells.clone());
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            // 部分生成工具不写单元格坐标，此时按出现顺序推断列号
+            int column = cellReference != null ? new CellReference(cellReference).getCol() : lastColumn + 1;
+            lastColumn = column;
+            if (column < columnCount && formattedValue != null) {
+                cells[column] = formattedValue.trim();
+            }
+        }
+    }
+}
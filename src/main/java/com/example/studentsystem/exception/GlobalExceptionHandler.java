@@ -86,6 +86,15 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(body, HttpStatus.CONFLICT);
     }
 
+    // 服务端资源暂时饱和 -> 503，并通过 Retry-After 告知客户端重试间隔
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorResponse> handleServiceBusy(ServiceBusyException ex, WebRequest request) {
+        String path = getPath(request);
+        ErrorResponse body = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE.value(), "Service Unavailable", ex.getMessage(), path);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(body);
+    }
 
     // fallback：其它异常 -> 500
     @ExceptionHandler(Exception.class)
@@ -0,0 +1,17 @@
+package com.example.studentsystem.exception;
+
+/**
+ * 服务端资源暂时饱和（例如密码哈希线程池已满），客户端应在 retryAfterSeconds 秒后重试 -> 503
+ */
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.studentsystem.mail;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * SMTP 邮件投递（同步）。
+ * 按健康状况依次尝试各发件邮箱，都失败则抛出异常。
+ * 只由发件箱调度线程调用，不在请求线程或数据库事务中执行。
+ * 每个邮箱维护一个 SMTP 长连接池（SmtpTransportPool），连续发送时复用已认证的连接，不必每封邮件重新握手登录。
+ * 每个邮箱还有一个熔断器（ProviderCircuitBreaker）：
+ * - 发送前按最近的错误率与平均耗时排序，优先使用最健康的邮箱；分值相同（如都没有统计数据）时保持QQ邮箱优先。
+ * - 熔断中的邮箱直接跳过，不再每封邮件都等待连接超时后才切换；所有邮箱都熔断时立即失败，由发件箱稍后重试。
+ */
+@Service
+@Slf4j
+public class MailDeliveryService {
+
+    /**
+     * 一个发件邮箱
+     * @param name    服务商标识（记录在发件箱中）
+     * @param label   日志中的名称
+     * @param from    发件地址
+     * @param pool    该邮箱的 SMTP 连接池
+     * @param breaker 该邮箱的熔断器
+     */
+    private record Provider(String name, String label, String from, SmtpTransportPool pool,
+                            ProviderCircuitBreaker breaker) {}
+
+    private final List<Provider> providers;
+    private final String fromName;
+
+    public MailDeliveryService(@Value("${spring.mail.qq.host}") String qqHost,
+                               @Value("${spring.mail.qq.port}") int qqPort,
+                               @Value("${spring.mail.qq.username}") String qqUsername,
+                               @Value("${spring.mail.qq.password}") String qqPassword,
+                               @Value("${spring.mail.qq.ssl:true}") boolean qqSsl,
+                               @Value("${spring.mail.netease.host}") String neteaseHost,
+                               @Value("${spring.mail.netease.port}") int neteasePort,
+                               @Value("${spring.mail.netease.username}") String neteaseUsername,
+                               @Value("${spring.mail.netease.password}") String neteasePassword,
+                               @Value("${spring.mail.netease.ssl:true}") boolean neteaseSsl,
+                               @Value("${mail.from.name:学生信息管理系统}") String fromName,
+                               @Value("${app.mail.pool.max-connections:2}") int maxConnections,
+                               @Value("${app.mail.pool.validate-after-idle-ms:10000}") long validateAfterIdleMs,
+                               @Value("${app.mail.pool.max-idle-ms:120000}") long maxIdleMs,
+                               @Value("${app.mail.pool.borrow-timeout-ms:10000}") long borrowTimeoutMs,
+                               @Value("${app.mail.circuit.window-size:20}") int windowSize,
+                               @Value("${app.mail.circuit.window-ms:300000}") long windowMs,
+                               @Value("${app.mail.circuit.minimum-calls:5}") int minimumCalls,
+                               @Value("${app.mail.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                               @Value("${app.mail.circuit.consecutive-failures:3}") int consecutiveFailures,
+                               @Value("${app.mail.circuit.open-duration-ms:30000}") long openDurationMs) {
+        Supplier<ProviderCircuitBreaker> breaker = () -> new ProviderCircuitBreaker(
+                windowSize, windowMs, minimumCalls, failureRateThreshold, consecutiveFailures, openDurationMs);
+        this.providers = List.of(
+                new Provider("qq", "QQ邮箱", qqUsername, new SmtpTransportPool("QQ邮箱",
+                        qqHost, qqPort, qqUsername, qqPassword, qqSsl,
+                        maxConnections, validateAfterIdleMs, maxIdleMs, borrowTimeoutMs), breaker.get()),
+                new Provider("netease", "网易邮箱", neteaseUsername, new SmtpTransportPool("网易邮箱",
+                        neteaseHost, neteasePort, neteaseUsername, neteasePassword, neteaseSsl,
+                        maxConnections, validateAfterIdleMs, maxIdleMs, borrowTimeoutMs), breaker.get()));
+        this.fromName = fromName;
+    }
+
+    /**
+     * 带容错机制的邮件发送
+     * @return 发送成功的服务商标识
+     * @throws MailSendException 所有邮箱都发送失败或处于熔断状态
+     */
+    public String deliver(String toEmail, String subject, String htmlBody) {
+        Exception lastError = null;
+        for (Provider provider : rankedProviders()) {
+            if (!provider.breaker().tryAcquire()) {
+                log.debug("{}处于熔断状态，跳过", provider.label());
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                send(provider, toEmail, subject, htmlBody);
+                provider.breaker().onSuccess((System.nanoTime() - start) / 1_000_000);
+                log.info("使用{}发送成功: {}", provider.label(), toEmail);
+                return provider.name();
+            } catch (Exception e) {
+                provider.breaker().onFailure((System.nanoTime() - start) / 1_000_000, e.getMessage());
+                log.warn("{}发送失败: {}", provider.label(), e.getMessage());
+                lastError = e;
+            }
+        }
+        if (lastError == null) {
+            throw new MailSendException("所有发件邮箱均处于熔断状态");
+        }
+        throw new MailSendException("邮件发送失败: " + lastError.getMessage(), lastError);
+    }
+
+    /**
+     * 使用指定邮箱发送邮件
+     */
+    private void send(Provider provider, String toEmail, String subject, String htmlBody) throws Exception {
+        MimeMessage message = provider.pool().createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(fromName + " <" + provider.from() + ">");
+        helper.setTo(toEmail);
+        helper.setSubject(subject);
+        helper.setText(htmlBody, true);
+
+        provider.pool().send(message);
+    }
+
+    /**
+     * 各邮箱的熔断状态、滚动统计与连接池统计
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        for (Provider provider : providers) {
+            Map<String, Object> providerMetrics = new LinkedHashMap<>();
+            providerMetrics.put("circuit", provider.breaker().metrics());
+            providerMetrics.put("pool", provider.pool().metrics());
+            metrics.put(provider.name(), providerMetrics);
+        }
+        return metrics;
+    }
+
+    // 按分值从小到大排序（稳定排序，分值相同保持配置顺序）；分值先取快照，避免排序过程中统计变化
+    private List<Provider> rankedProviders() {
+        Map<Provider, Double> scores = new IdentityHashMap<>();
+        providers.forEach(provider -> scores.put(provider, provider.breaker().score()));
+        List<Provider> ranked = new ArrayList<>(providers);
+        ranked.sort(Comparator.comparingDouble(scores::get));
+        return ranked;
+    }
+
+    /**
+     * 定期关闭空闲过久的连接
+     */
+    @Scheduled(initialDelayString = "${app.mail.pool.evict-interval-ms:60000}",
+            fixedDelayString = "${app.mail.pool.evict-interval-ms:60000}")
+    public void evictIdleConnections() {
+        providers.forEach(provider -> provider.pool().evictIdle());
+    }
+
+    @PreDestroy
+    void close() {
+        providers.forEach(provider -> provider.pool().close());
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.studentsystem.mail;
+
+import com.example.studentsystem.model.MailOutboxMessage;
+import com.example.studentsystem.repository.MailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 邮件发件箱：业务代码只负责入队，后台线程负责发送。
+ * - enqueue 在调用方事务内写入一条 PENDING 记录，与验证码一同提交或回滚；事务提交后唤醒发送线程，
+ *   请求线程不做任何 SMTP 通信，也不会因邮件服务器慢而长时间占用数据库连接。
+ * - 发送在单独的守护线程上进行：按 nextAttemptAt 取出到期邮件，先条件更新为 SENDING（租约）再发送，
+ *   多实例部署时同一封邮件只会被一个实例领取；实例在发送中途退出的，租约到期后由其它实例重新领取。
+ * - 失败按指数退避重试（app.mail.outbox.retry-base-ms 起步，每次翻倍，不超过 retry-max-ms，附带 ±20% 抖动），
+ *   达到 max-attempts 次或超过邮件的过期时间仍未发出则置为 FAILED。
+ * - 除提交后唤醒外，还按 app.mail.outbox.poll-interval-ms 定时轮询，兜底处理重试与其它实例写入的邮件。
+ */
+@Service
+@Slf4j
+public class MailOutboxService {
+
+    private static final List<MailOutboxMessage.Status> CLAIMABLE =
+            List.of(MailOutboxMessage.Status.PENDING, MailOutboxMessage.Status.SENDING);
+    private static final List<MailOutboxMessage.Status> FINISHED =
+            List.of(MailOutboxMessage.Status.SENT, MailOutboxMessage.Status.FAILED);
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final MailOutboxRepository outboxRepository;
+    private final MailDeliveryService deliveryService;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBaseMs;
+    private final long retryMaxMs;
+    private final Duration lease;
+    private final Duration retention;
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "mail-outbox");
+        t.setDaemon(true);
+        return t;
+    });
+    // 已有一次排队中的发送任务时不再重复提交
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder queueToSentMillis = new LongAdder();
+
+    public MailOutboxService(MailOutboxRepository outboxRepository,
+                             MailDeliveryService deliveryService,
+                             @Value("${app.mail.outbox.batch-size:20}") int batchSize,
+                             @Value("${app.mail.outbox.max-attempts:5}") int maxAttempts,
+                             @Value("${app.mail.outbox.retry-base-ms:2000}") long retryBaseMs,
+                             @Value("${app.mail.outbox.retry-max-ms:60000}") long retryMaxMs,
+                             @Value("${app.mail.outbox.lease-ms:60000}") long leaseMs,
+                             @Value("${app.mail.outbox.retention-hours:24}") long retentionHours) {
+        this.outboxRepository = outboxRepository;
+        this.deliveryService = deliveryService;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBaseMs = retryBaseMs;
+        this.retryMaxMs = retryMaxMs;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.retention = Duration.ofHours(retentionHours);
+    }
+
+    /**
+     * 写入一封待发送邮件（加入调用方的事务，提交后才会被发送）
+     * @param ttl 有效期，超过后不再发送
+     */
+    public void enqueue(String recipient, String subject, String htmlBody, Duration ttl) {
+        Instant now = Instant.now();
+        outboxRepository.save(MailOutboxMessage.builder()
+                .recipient(recipient)
+                .subject(subject)
+                .body(htmlBody)
+                .status(MailOutboxMessage.Status.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .expiresAt(now.plus(ttl))
+                .createdAt(now)
+                .build());
+        enqueued.increment();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wakeUp();
+                }
+            });
+        } else {
+            wakeUp();
+        }
+    }
+
+    /**
+     * 定时轮询到期的邮件（重试、其它实例写入、唤醒丢失等情况的兜底）
+     */
+    @Scheduled(initialDelayString = "${app.mail.outbox.poll-interval-ms:5000}",
+            fixedDelayString = "${app.mail.outbox.poll-interval-ms:5000}")
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * 定期删除超过保留期的已发送 / 已失败邮件
+     */
+    @Scheduled(initialDelayString = "${app.mail.outbox.purge-interval-ms:3600000}",
+            fixedDelayString = "${app.mail.outbox.purge-interval-ms:3600000}")
+    public void purge() {
+        int deleted = outboxRepository.deleteFinishedBefore(FINISHED, Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("清理发件箱历史邮件 {} 条", deleted);
+        }
+    }
+
+    /**
+     * 发件箱统计信息
+     */
+    public Map<String, Object> metrics() {
+        Map<MailOutboxMessage.Status, Long> byStatus = new EnumMap<>(MailOutboxMessage.Status.class);
+        for (MailOutboxMessage.Status status : MailOutboxMessage.Status.values()) {
+            byStatus.put(status, 0L);
+        }
+        for (Object[] row : outboxRepository.countByStatus()) {
+            byStatus.put((MailOutboxMessage.Status) row[0], (Long) row[1]);
+        }
+        long sentCount = sent.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("byStatus", byStatus);
+        metrics.put("enqueued", enqueued.sum());
+        metrics.put("sent", sentCount);
+        metrics.put("retried", retried.sum());
+        metrics.put("failed", failed.sum());
+        metrics.put("avgQueueToSentMs", sentCount == 0 ? 0.0 : (double) queueToSentMillis.sum() / sentCount);
+        return metrics;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    private void wakeUp() {
+        if (drainQueued.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                drainQueued.set(false);
+                try {
+                    drain();
+                } catch (Exception e) {
+                    log.warn("发件箱处理失败，将在下次轮询时重试: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * 发送所有到期的邮件，按批次取出直到没有剩余
+     */
+    private void drain() {
+        List<Long> ids;
+        do {
+            Instant now = Instant.now();
+            ids = outboxRepository.findDueIds(CLAIMABLE, now, Limit.of(batchSize));
+            for (Long id : ids) {
+                if (outboxRepository.claim(id, CLAIMABLE, MailOutboxMessage.Status.SENDING, now, now.plus(lease)) == 1) {
+                    outboxRepository.findById(id).ifPresent(this::deliver);
+                }
+            }
+        } while (ids.size() == batchSize);
+    }
+
+    private void deliver(MailOutboxMessage message) {
+        Instant now = Instant.now();
+        if (message.getExpiresAt().isBefore(now)) {
+            fail(message, "邮件已过期，放弃发送");
+            return;
+        }
+        try {
+            String provider = deliveryService.deliver(message.getRecipient(), message.getSubject(), message.getBody());
+            Instant sentAt = Instant.now();
+            message.setStatus(MailOutboxMessage.Status.SENT);
+            message.setProvider(provider);
+            message.setSentAt(sentAt);
+            message.setLastError(null);
+            outboxRepository.save(message);
+            sent.increment();
+            queueToSentMillis.add(Duration.between(message.getCreatedAt(), sentAt).toMillis());
+        } catch (Exception e) {
+            String error = truncate(e.getMessage());
+            long delayMs = backoffMillis(message.getAttempts());
+            Instant retryAt = Instant.now().plusMillis(delayMs);
+            if (message.getAttempts() >= maxAttempts || retryAt.isAfter(message.getExpiresAt())) {
+                fail(message, error);
+                return;
+            }
+            message.setStatus(MailOutboxMessage.Status.PENDING);
+            message.setNextAttemptAt(retryAt);
+            message.setLastError(error);
+            outboxRepository.save(message);
+            retried.increment();
+            log.warn("邮件 {} 第 {} 次发送失败，{} 毫秒后重试: {}", message.getId(), message.getAttempts(), delayMs, error);
+        }
+    }
+
+    private void fail(MailOutboxMessage message, String error) {
+        message.setStatus(MailOutboxMessage.Status.FAILED);
+        message.setLastError(error);
+        outboxRepository.save(message);
+        failed.increment();
+        log.error("邮件 {} 发送失败（已尝试 {} 次），收件人 {}: {}",
+                message.getId(), message.getAttempts(), message.getRecipient(), error);
+    }
+
+    // 第 n 次失败后的等待时间：base * 2^(n-1)，不超过 max，附带 ±20% 抖动避免多封邮件同时重试
+    private long backoffMillis(int attempts) {
+        long delay = retryBaseMs << Math.min(Math.max(attempts - 1, 0), 20);
+        delay = Math.min(delay, retryMaxMs);
+        return (long) (delay * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
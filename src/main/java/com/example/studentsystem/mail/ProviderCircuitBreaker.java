@@ -0,0 +1,204 @@
+package com.example.studentsystem.mail;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个发件邮箱的熔断器与滚动统计。
+ * - 记录最近 windowSize 次、且不早于 windowMs 的发送成败与耗时，据此计算错误率与平均耗时，供选择发件邮箱时排序。
+ *   旧数据按时间过期：一次偶发失败不会让某个邮箱长期排在后面。
+ * - CLOSED：正常发送。窗口内调用数达到 minimumCalls 且错误率不低于 failureRateThreshold，
+ *   或连续失败 consecutiveFailureThreshold 次，转为 OPEN。
+ * - OPEN：openDurationMs 内直接跳过该邮箱，不再等待连接超时。
+ * - HALF_OPEN：OPEN 到期后只放行一次试探发送，成功则恢复 CLOSED 并清空窗口，失败则重新 OPEN。
+ * 发送只在发件箱线程上进行，调用量很小，方法统一加锁即可。
+ */
+final class ProviderCircuitBreaker {
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final int consecutiveFailureThreshold;
+    private final long openDurationMs;
+    private final long windowMs;
+
+    // 最近 windowSize 次调用的环形缓冲
+    private final boolean[] outcomes;
+    private final long[] latencies;
+    private final long[] timestamps;
+    private int next;
+    private int size;
+    private int failuresInWindow;
+    private long latencyInWindow;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean trialInFlight;
+
+    private long totalCalls;
+    private long totalFailures;
+    private long skipped;
+    private long timesOpened;
+    private String lastError;
+    private Instant lastFailureAt;
+
+    ProviderCircuitBreaker(int windowSize, long windowMs, int minimumCalls, double failureRateThreshold,
+                           int consecutiveFailureThreshold, long openDurationMs) {
+        this.outcomes = new boolean[Math.max(1, windowSize)];
+        this.latencies = new long[Math.max(1, windowSize)];
+        this.timestamps = new long[Math.max(1, windowSize)];
+        this.windowMs = windowMs;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.consecutiveFailureThreshold = consecutiveFailureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * 是否允许本次发送；OPEN 状态返回 false，到期后转为 HALF_OPEN 并只放行一次
+     */
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                skipped++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                skipped++;
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    synchronized void onSuccess(long latencyMs) {
+        totalCalls++;
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            resetWindow();
+        }
+        record(true, latencyMs);
+    }
+
+    synchronized void onFailure(long latencyMs, String error) {
+        totalCalls++;
+        totalFailures++;
+        consecutiveFailures++;
+        lastError = error;
+        lastFailureAt = Instant.now();
+        record(false, latencyMs);
+        if (state == State.HALF_OPEN
+                || consecutiveFailures >= consecutiveFailureThreshold
+                || (size >= minimumCalls && failureRate() >= failureRateThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * 选择发件邮箱时的排序分值，越小越优先：平均耗时按错误率加权。
+     * 熔断到期待试探、或窗口内没有统计数据的邮箱排在最前，否则流量一直走其它邮箱，它将没有机会恢复。
+     */
+    synchronized double score() {
+        if (state() == State.HALF_OPEN && !trialInFlight) {
+            return -1;
+        }
+        expireOld();
+        if (size == 0) {
+            return 0;
+        }
+        return averageLatencyMs() * (1 + 4 * failureRate());
+    }
+
+    synchronized State state() {
+        if (state == State.OPEN && System.currentTimeMillis() >= openUntil) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    synchronized Map<String, Object> metrics() {
+        expireOld();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("state", state());
+        metrics.put("windowCalls", size);
+        metrics.put("errorRate", size == 0 ? 0.0 : failureRate());
+        metrics.put("avgLatencyMs", size == 0 ? 0.0 : averageLatencyMs());
+        metrics.put("consecutiveFailures", consecutiveFailures);
+        metrics.put("totalCalls", totalCalls);
+        metrics.put("totalFailures", totalFailures);
+        metrics.put("skipped", skipped);
+        metrics.put("timesOpened", timesOpened);
+        metrics.put("openUntil", state == State.OPEN ? Instant.ofEpochMilli(openUntil) : null);
+        metrics.put("lastFailureAt", lastFailureAt);
+        metrics.put("lastError", lastError);
+        return metrics;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntil = System.currentTimeMillis() + openDurationMs;
+        trialInFlight = false;
+        timesOpened++;
+    }
+
+    private void record(boolean success, long latencyMs) {
+        if (size == outcomes.length) {
+            if (!outcomes[next]) {
+                failuresInWindow--;
+            }
+            latencyInWindow -= latencies[next];
+        } else {
+            size++;
+        }
+        outcomes[next] = success;
+        latencies[next] = latencyMs;
+        timestamps[next] = System.currentTimeMillis();
+        if (!success) {
+            failuresInWindow++;
+        }
+        latencyInWindow += latencyMs;
+        next = (next + 1) % outcomes.length;
+    }
+
+    // 移除早于 windowMs 的记录（从最旧的一条开始）
+    private void expireOld() {
+        long cutoff = System.currentTimeMillis() - windowMs;
+        while (size > 0) {
+            int oldest = Math.floorMod(next - size, outcomes.length);
+            if (timestamps[oldest] >= cutoff) {
+                return;
+            }
+            if (!outcomes[oldest]) {
+                failuresInWindow--;
+            }
+            latencyInWindow -= latencies[oldest];
+            size--;
+        }
+    }
+
+    private void resetWindow() {
+        next = 0;
+        size = 0;
+        failuresInWindow = 0;
+        latencyInWindow = 0;
+    }
+
+    private double failureRate() {
+        return (double) failuresInWindow / size;
+    }
+
+    private double averageLatencyMs() {
+        return (double) latencyInWindow / size;
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.studentsystem.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 SMTP 服务器的长连接池。
+ * - 连接建立（TCP + TLS 握手 + AUTH）后保留复用，之后每封邮件只需一次 MAIL/RCPT/DATA 交互。
+ * - 空闲连接按后进先出取用：常用的连接保持活跃，多余的连接自然空闲并被淘汰。
+ * - 取出空闲超过 validateAfterIdleMs 的连接时先用 NOOP 检查（Transport.isConnected），
+ *   空闲超过 maxIdleMs 的直接关闭重建（服务器通常会主动断开长时间空闲的连接）。
+ * - 复用的连接发送失败（服务器已断开等）时关闭该连接，并用新建连接重试一次；收件人被拒绝不重试。
+ * - 同时使用的连接数不超过 maxConnections，超出的调用方最多等待 borrowTimeoutMs。
+ */
+@Slf4j
+final class SmtpTransportPool {
+
+    // 一个已连接的 Transport 及其最后使用时间
+    private static final class Connection {
+        final Transport transport;
+        long lastUsedAt;
+
+        Connection(Transport transport) {
+            this.transport = transport;
+            this.lastUsedAt = System.currentTimeMillis();
+        }
+    }
+
+    private final String name;
+    private final Session session;
+    private final String host;
+    private final int port;
+    private final String username;
+    private final String password;
+    private final int maxConnections;
+    private final long validateAfterIdleMs;
+    private final long maxIdleMs;
+    private final long borrowTimeoutMs;
+
+    private final BlockingDeque<Connection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder sendNanos = new LongAdder();
+
+    SmtpTransportPool(String name, String host, int port, String username, String password, boolean ssl,
+                      int maxConnections, long validateAfterIdleMs, long maxIdleMs, long borrowTimeoutMs) {
+        this.name = name;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+        this.password = password;
+        this.maxConnections = maxConnections;
+        this.validateAfterIdleMs = validateAfterIdleMs;
+        this.maxIdleMs = maxIdleMs;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.permits = new Semaphore(maxConnections);
+
+        Properties props = new Properties();
+        props.put("mail.transport.protocol", "smtp");
+        props.put("mail.smtp.auth", "true");
+        props.put("mail.smtp.ssl.enable", String.valueOf(ssl));
+        props.put("mail.smtp.ssl.trust", host);
+        props.put("mail.smtp.timeout", "10000");
+        props.put("mail.smtp.connectiontimeout", "10000");
+        props.put("mail.smtp.writetimeout", "10000");
+        this.session = Session.getInstance(props);
+    }
+
+    /**
+     * 创建属于本连接池 Session 的邮件
+     */
+    MimeMessage createMimeMessage() {
+        return new MimeMessage(session);
+    }
+
+    /**
+     * 使用池中的连接发送邮件
+     */
+    void send(MimeMessage message) throws MessagingException {
+        message.saveChanges();
+        Address[] recipients = message.getAllRecipients();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException(name + " 连接池繁忙");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException(name + " 等待连接时被中断", e);
+        }
+        long start = System.nanoTime();
+        try {
+            Connection connection = pollIdle();
+            boolean pooled = connection != null;
+            if (pooled) {
+                reused.increment();
+            } else {
+                connection = open();
+            }
+            try {
+                connection.transport.sendMessage(message, recipients);
+            } catch (MessagingException e) {
+                close(connection);
+                if (!pooled || isRecipientRejected(e)) {
+                    throw e;
+                }
+                // 复用的连接可能已被服务器断开，换新连接重试一次
+                log.info("{} 复用连接发送失败，重新连接: {}", name, e.getMessage());
+                reconnects.increment();
+                connection = open();
+                try {
+                    connection.transport.sendMessage(message, recipients);
+                } catch (MessagingException retryError) {
+                    close(connection);
+                    throw retryError;
+                }
+            }
+            connection.lastUsedAt = System.currentTimeMillis();
+            idle.offerFirst(connection);
+            sentCount.increment();
+            sendNanos.add(System.nanoTime() - start);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 关闭空闲过久的连接
+     */
+    void evictIdle() {
+        long now = System.currentTimeMillis();
+        int size = idle.size();
+        for (int i = 0; i < size; i++) {
+            Connection connection = idle.pollLast();
+            if (connection == null) {
+                return;
+            }
+            if (now - connection.lastUsedAt > maxIdleMs) {
+                close(connection);
+            } else {
+                idle.offerLast(connection);
+            }
+        }
+    }
+
+    /**
+     * 关闭所有空闲连接
+     */
+    void close() {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            close(connection);
+        }
+    }
+
+    Map<String, Object> metrics() {
+        long sent = sentCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxConnections", maxConnections);
+        metrics.put("inUse", maxConnections - permits.availablePermits());
+        metrics.put("idle", idle.size());
+        metrics.put("opened", opened.sum());
+        metrics.put("reused", reused.sum());
+        metrics.put("validationFailures", validationFailures.sum());
+        metrics.put("reconnects", reconnects.sum());
+        metrics.put("sent", sent);
+        metrics.put("avgSendMs", sent == 0 ? 0.0 : sendNanos.sum() / 1_000_000.0 / sent);
+        return metrics;
+    }
+
+    // 取出一个可用的空闲连接，没有则返回 null
+    private Connection pollIdle() {
+        Connection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            long idleMs = System.currentTimeMillis() - connection.lastUsedAt;
+            if (idleMs > maxIdleMs) {
+                close(connection);
+            } else if (idleMs > validateAfterIdleMs && !connection.transport.isConnected()) {
+                validationFailures.increment();
+                close(connection);
+            } else {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    private Connection open() throws MessagingException {
+        Transport transport = session.getTransport();
+        transport.connect(host, port, username, password);
+        opened.increment();
+        return new Connection(transport);
+    }
+
+    private void close(Connection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            // 连接已断开，忽略
+        }
+    }
+
+    // 服务器拒绝了收件人地址，换连接重试也不会成功
+    private static boolean isRecipientRejected(MessagingException e) {
+        return e instanceof SendFailedException sfe
+                && sfe.getInvalidAddresses() != null && sfe.getInvalidAddresses().length > 0;
+    }
+}
@@ -4,9 +4,15 @@ import com.example.studentsystem.model.Student;
 import com.example.studentsystem.model.User;
 import com.example.studentsystem.dto.StudentRequestDto;
 import com.example.studentsystem.dto.StudentResponseDto;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 //这是一个映射器类，用于在实体和DTO（StudentRequestDto、StudentResponseDto）之间转换数据，避免直接暴露实体。
 //所有方法都处理null值以提高健壮性，常用于控制器中数据转换。
 public class StudentMapper {
+    //Excel 模板、导入与导出共用的列顺序
+    public static final String[] EXCEL_HEADERS = {"姓名", "学号", "性别", "出生日期", "班级", "监护人手机号", "地址"};
+
     //toEntity(dto, user)：将请求DTO转换为新Student实体，设置所有字段和用户关联。
     public static Student toEntity(StudentRequestDto dto, User user) {
         if (dto == null) return null;
@@ -46,4 +52,46 @@ public class StudentMapper {
         s.setAddress(dto.getAddress());
         s.setClassName(dto.getClassName());
     }
-}
\ No newline at end of file
+    //fromExcelRow(cells)：将一行 Excel 单元格文本（姓名、学号、性别、出生日期、班级、监护人手机号、地址）转换为请求DTO。
+    //DOM 导入与流式导入共用此映射；学号为空的行返回 null，由调用方计为跳过。
+    public static StudentRequestDto fromExcelRow(String[] cells) {
+        if (cells == null) return null;
+        String studentNo = cell(cells, 1);
+        if (studentNo == null || studentNo.isBlank()) return null;  // 学号必填
+        StudentRequestDto dto = new StudentRequestDto();
+        dto.setName(cell(cells, 0));
+        dto.setStudentNo(studentNo);
+        dto.setGender(cell(cells, 2));
+        // 解析出生日期（yyyy-MM-dd 格式），格式错误时忽略
+        String dobStr = cell(cells, 3);
+        if (dobStr != null && !dobStr.isBlank()) {
+            try {
+                dto.setDob(LocalDate.parse(dobStr, DateTimeFormatter.ISO_LOCAL_DATE));
+            } catch (Exception e) {
+                // 日期格式错误，忽略
+            }
+        }
+        dto.setClassName(cell(cells, 4));
+        dto.setPhone(cell(cells, 5));
+        dto.setAddress(cell(cells, 6));
+        return dto;
+    }
+
+    //toExcelRow(dto)：按 EXCEL_HEADERS 的列顺序输出单元格文本，出生日期格式为 yyyy-MM-dd，导出的文件可直接再次导入。
+    public static String[] toExcelRow(StudentResponseDto dto) {
+        return new String[]{
+                dto.getName(),
+                dto.getStudentNo(),
+                dto.getGender(),
+                dto.getDob() != null ? dto.getDob().format(DateTimeFormatter.ISO_LOCAL_DATE) : null,
+                dto.getClassName(),
+                dto.getPhone(),
+                dto.getAddress()
+        };
+    }
+
+    private static String cell(String[] cells, int index) {
+        if (index >= cells.length || cells[index] == null) return null;
+        return cells[index].trim();
+    }
+}
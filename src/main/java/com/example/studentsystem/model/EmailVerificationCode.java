@@ -10,9 +10,14 @@ import java.time.LocalDateTime;
 
 /**
  * 邮箱验证码实体类
+ * 索引：(email, scene, created_time) 覆盖按邮箱和场景查找最新记录、统计发送次数的查询；
+ * expire_time 供定期清理过期记录使用。
  */
 @Entity
-@Table(name = "email_verification_code")
+@Table(name = "email_verification_code", indexes = {
+        @Index(name = "idx_email_code_email_scene_created", columnList = "email, scene, createdTime"),
+        @Index(name = "idx_email_code_expire_time", columnList = "expireTime")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,93 @@
+package com.example.studentsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 待发送邮件（发件箱）。
+ * - 业务事务内只写入一条 PENDING 记录，提交后由后台调度器取出发送，请求线程不做 SMTP 通信。
+ * - 发送失败按退避间隔重试，超过最大次数或过期仍未发出则置为 FAILED。
+ * - SENDING 状态的 nextAttemptAt 表示租约到期时间：实例在发送中途崩溃时，租约过期后可被重新领取。
+ */
+@Entity
+@Table(name = "mail_outbox", indexes = {
+        @Index(name = "idx_mail_outbox_status_next", columnList = "status, nextAttemptAt"),
+        @Index(name = "idx_mail_outbox_created_at", columnList = "createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MailOutboxMessage {
+
+    public enum Status {
+        PENDING, SENDING, SENT, FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 收件人邮箱
+     */
+    @Column(nullable = false, length = 100)
+    private String recipient;
+
+    /**
+     * 邮件主题
+     */
+    @Column(nullable = false, length = 200)
+    private String subject;
+
+    /**
+     * 邮件正文（HTML）
+     */
+    @Lob
+    @Column(nullable = false)
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Status status;
+
+    /**
+     * 已尝试发送的次数
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * 下次可尝试发送的时间（SENDING 状态下为租约到期时间）
+     */
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    /**
+     * 过期时间，此后不再发送（如验证码已失效）
+     */
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(length = 500)
+    private String lastError;
+
+    /**
+     * 实际发送成功的邮箱服务商
+     */
+    @Column(length = 20)
+    private String provider;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    private Instant sentAt;
+}
@@ -0,0 +1,73 @@
+package com.example.studentsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 刷新令牌。
+ * - 数据库只保存令牌的 SHA-256 摘要，不保存原文。
+ * - 每次刷新都会使用旧令牌并签发同一家族（familyId）的新令牌；同一次登录产生的令牌属于同一家族。
+ * - 已使用过的令牌再次出现视为泄露，整个家族被吊销。
+ */
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_tokens_user", columnList = "userId"),
+        @Index(name = "idx_refresh_tokens_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 令牌原文的 SHA-256 摘要（十六进制）
+     */
+    @Column(nullable = false, unique = true, length = 64)
+    private String tokenHash;
+
+    /**
+     * 所属用户 ID
+     */
+    @Column(nullable = false)
+    private Long userId;
+
+    /**
+     * 令牌家族 ID，同一次登录后轮换出的令牌共用
+     */
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    /**
+     * 过期时间
+     */
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * 签发时间
+     */
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * 被用于刷新的时间，为空表示尚未使用
+     */
+    private Instant usedAt;
+
+    /**
+     * 是否已吊销（退出登录、重置密码或检测到重复使用）
+     */
+    @Column(nullable = false)
+    private boolean revoked;
+}
@@ -0,0 +1,53 @@
+package com.example.studentsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 已吊销的 JWT（按 jti 记录的黑名单）。
+ * - 记录保留到 token 原本的过期时间，过期后由 TokenRevocationService 定期清理。
+ * - 各实例按吊销时间增量同步（自增 ID 的分配顺序与提交顺序不一定一致，不能作为水位线）。
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_tokens_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_revoked_tokens_revoked_at", columnList = "revokedAt, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * token 的唯一标识（jti 声明）
+     */
+    @Column(nullable = false, unique = true, length = 64)
+    private String jti;
+
+    /**
+     * token 所属用户 ID
+     */
+    private Long userId;
+
+    /**
+     * token 原本的过期时间，此后记录可删除
+     */
+    @Column(nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * 吊销时间
+     */
+    @Column(nullable = false)
+    private Instant revokedAt;
+}
@@ -4,6 +4,8 @@ import jakarta.persistence.*;  // 导入JPA注解
 // 导入Lombok注解,简化类的getter和setter方法
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDate;   // 导入LocalDate类，用于处理日期
 //可以看成为表结构的 Java 描述 + 提供字段访问/设置的 POJO（普通java对象，用于使用数据库的数据表）
@@ -12,7 +14,11 @@ import java.time.LocalDate;   // 导入LocalDate类，用于处理日期
 @Entity  // 标记此类为JPA实体，表示它映射到数据库表
 @Table(name = "students", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"student_no", "user_id"})  // 学号在同一用户内唯一
+}, indexes = {
+    @Index(name = "idx_students_user_student_no", columnList = "user_id, student_no")  // 按用户过滤并按学号排序的游标分页
 })  // 指定映射的数据库表名为students
+@Cacheable  // 开启 app.cache.second-level.enabled 时进入 Hibernate 二级缓存（见 SecondLevelCacheConfig）
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "student")
 public class Student {
     // 以下是所有字段的getter和setter方法，用于访问和修改私有字段
     @Id  // 标记为主键字段
@@ -3,10 +3,13 @@ package com.example.studentsystem.model;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -14,9 +17,12 @@ import java.util.stream.Collectors;
  * 用户实体并实现 Spring Security 的 UserDetails 接口。
  * - 使用 @ElementCollection 存储角色集合（枚举以字符串形式存储）。
  * - getAuthorities() 将枚举转换为 SimpleGrantedAuthority 供 Spring Security 使用。
+ * - 用户与角色集合可进入 Hibernate 二级缓存（开启 app.cache.second-level.enabled 时生效，见 SecondLevelCacheConfig）。
  */
 @Setter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @Table(name = "users")
 public class User implements UserDetails {
     @Getter
@@ -43,10 +49,18 @@ public class User implements UserDetails {
     @Getter
     @ElementCollection(fetch = FetchType.EAGER)
     @CollectionTable(name = "user_roles")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-roles")
     @Enumerated(EnumType.STRING)
     // 使用 Set 避免重复角色,将实体中的角色授予roles权限
     private Set<Role> roles = new HashSet<>();
 
+    /**
+     * 在此时间之前签发的 token 全部失效（重置密码、强制下线时更新），为空表示未吊销过。
+     * JWT 的签发时间精确到秒，与该时间同一秒内签发的 token 同样失效。
+     */
+    @Getter
+    private Instant tokensValidAfter;
+
     // 无参构造（JPA 需要）
     public User() {}
 
@@ -1,10 +1,16 @@
 package com.example.studentsystem.repository;
 
 import com.example.studentsystem.model.EmailVerificationCode;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,6 +24,12 @@ public interface EmailVerificationCodeRepository extends JpaRepository<EmailVeri
      */
     Optional<EmailVerificationCode> findFirstByEmailAndSceneOrderByCreatedTimeDesc(String email, String scene);
 
+    /**
+     * 查找最新的验证码记录并加行锁，同一验证码的并发校验依次执行，错误次数不会丢失
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<EmailVerificationCode> findTopByEmailAndSceneOrderByCreatedTimeDesc(String email, String scene);
+
     /**
      * 根据邮箱、场景和状态查找验证码记录
      */
@@ -27,4 +39,10 @@ public interface EmailVerificationCodeRepository extends JpaRepository<EmailVeri
      * 统计某个邮箱在指定时间之后的发送次数
      */
     long countByEmailAndSceneAndCreatedTimeAfter(String email, String scene, LocalDateTime after);
+
+    /**
+     * 查询过期时间早于指定时间的记录 ID（分批清理用）
+     */
+    @Query("SELECT c.id FROM EmailVerificationCode c WHERE c.expireTime < :before ORDER BY c.id")
+    List<Long> findIdsExpiredBefore(@Param("before") LocalDateTime before, Limit limit);
 }
@@ -0,0 +1,45 @@
+package com.example.studentsystem.repository;
+
+import com.example.studentsystem.model.MailOutboxMessage;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+// 发件箱的持久化操作
+public interface MailOutboxRepository extends JpaRepository<MailOutboxMessage, Long> {
+
+    // 到期可发送的邮件 ID（待发送，或发送租约已过期）
+    @Query("SELECT m.id FROM MailOutboxMessage m WHERE m.status IN :statuses AND m.nextAttemptAt <= :now " +
+            "ORDER BY m.nextAttemptAt")
+    List<Long> findDueIds(@Param("statuses") Collection<MailOutboxMessage.Status> statuses,
+                          @Param("now") Instant now, Limit limit);
+
+    // 领取一封邮件：条件更新为 SENDING 并设置租约，返回 1 表示领取成功（多实例下同一封邮件只有一个实例能领取）
+    @Modifying
+    @Transactional
+    @Query("UPDATE MailOutboxMessage m SET m.status = :sending, m.attempts = m.attempts + 1, m.nextAttemptAt = :leaseUntil " +
+            "WHERE m.id = :id AND m.status IN :statuses AND m.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id,
+              @Param("statuses") Collection<MailOutboxMessage.Status> statuses,
+              @Param("sending") MailOutboxMessage.Status sending,
+              @Param("now") Instant now,
+              @Param("leaseUntil") Instant leaseUntil);
+
+    // 各状态的邮件数
+    @Query("SELECT m.status, COUNT(m) FROM MailOutboxMessage m GROUP BY m.status")
+    List<Object[]> countByStatus();
+
+    // 删除早于指定时间的已完成（已发送或最终失败）邮件
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MailOutboxMessage m WHERE m.status IN :statuses AND m.createdAt < :before")
+    int deleteFinishedBefore(@Param("statuses") Collection<MailOutboxMessage.Status> statuses,
+                             @Param("before") Instant before);
+}
@@ -0,0 +1,39 @@
+package com.example.studentsystem.repository;
+
+import com.example.studentsystem.model.RefreshToken;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+// 刷新令牌的持久化操作
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    // 按摘要查找并加行锁，保证同一令牌的并发刷新只有一个能成功轮换
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    // 吊销整个令牌家族
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.familyId = :familyId AND t.revoked = false")
+    int revokeFamily(@Param("familyId") String familyId);
+
+    // 吊销用户的全部刷新令牌
+    @Modifying
+    @Transactional
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.userId = :userId AND t.revoked = false")
+    int revokeByUserId(@Param("userId") Long userId);
+
+    // 删除已过期的刷新令牌
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
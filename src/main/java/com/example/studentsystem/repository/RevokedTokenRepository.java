@@ -0,0 +1,27 @@
+package com.example.studentsystem.repository;
+
+import com.example.studentsystem.model.RevokedToken;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+// 已吊销 token 的持久化操作，按吊销时间增量同步到各实例的内存黑名单
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    // 按 (revokedAt, id) 顺序增量拉取指定位置之后的吊销记录（键集分页）
+    @Query("SELECT t FROM RevokedToken t WHERE t.revokedAt > :revokedAt OR (t.revokedAt = :revokedAt AND t.id > :id) " +
+            "ORDER BY t.revokedAt, t.id")
+    List<RevokedToken> findRevokedAfter(@Param("revokedAt") Instant revokedAt, @Param("id") Long id, Limit limit);
+
+    // 删除已过期的吊销记录（对应 token 已自然失效）
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
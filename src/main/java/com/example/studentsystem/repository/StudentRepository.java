@@ -1,25 +1,130 @@
 package com.example.studentsystem.repository;
 
+import com.example.studentsystem.dto.StudentResponseDto;
 import com.example.studentsystem.model.Student;
 import com.example.studentsystem.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 //是一个 Spring Data JPA 的 "仓库" 接口，声明了对 Student 实体的持久化操作
 public interface StudentRepository extends JpaRepository<Student, Long> {
+    // 直接查询为响应 DTO 的构造器表达式：只读取所需列，结果不是托管实体，
+    // 不进入持久化上下文，也没有脏检查快照，省去实体到 DTO 的复制
+    String SELECT_DTO = "SELECT new com.example.studentsystem.dto.StudentResponseDto("
+            + "s.id, s.studentNo, s.name, s.gender, s.dob, s.phone, s.address, s.className) FROM Student s ";
+
     // 根据用户和学生编号查找学生（确保在用户内唯一）
     Optional<Student> findByUserAndStudentNo(User user, String studentNo);
 
-    // 按学号模糊/前缀查询（包含关系），只查询当前用户的数据
-    Page<Student> findByUserAndStudentNoContaining(User user, String studentNo, Pageable pageable);
+    // 按学号集合精确查询（学号由内存索引匹配得到），可使用 (student_no, user_id) 唯一索引
+    Window<Student> findByUserAndStudentNoIn(User user, Collection<String> studentNos, ScrollPosition position, Sort sort, Limit limit);
     
-    // 查询当前用户的所有学生
-    Page<Student> findByUser(User user, Pageable pageable);
+    // 游标（keyset）分页：按 position 中记录的上一页末行排序键继续读取，不使用 OFFSET，也不执行 count 查询
+    Window<Student> findByUser(User user, ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Student> findByUserAndStudentNoContaining(User user, String studentNo, ScrollPosition position, Sort sort, Limit limit);
+
+    // 游标分页按需统计总数
+    long countByUser(User user);
+
+    long countByUserAndStudentNoContaining(User user, String studentNo);
     
+    // 按ID集合查找当前用户的学生（全文检索命中后回库读取）
+    List<Student> findByUserAndIdIn(User user, Collection<Long> ids);
+
     // 根据ID和用户查找学生（确保只能操作自己的数据）
     Optional<Student> findByIdAndUser(Long id, User user);
+
+    // 分页查询当前用户的所有学生（DTO 投影）
+    @Query(value = SELECT_DTO + "WHERE s.user = :user",
+            countQuery = "SELECT COUNT(s) FROM Student s WHERE s.user = :user")
+    Page<StudentResponseDto> findDtoByUser(@Param("user") User user, Pageable pageable);
+
+    // 按学号集合精确分页查询（学号由内存索引匹配得到，DTO 投影）
+    @Query(value = SELECT_DTO + "WHERE s.user = :user AND s.studentNo IN :studentNos",
+            countQuery = "SELECT COUNT(s) FROM Student s WHERE s.user = :user AND s.studentNo IN :studentNos")
+    Page<StudentResponseDto> findDtoByUserAndStudentNoIn(@Param("user") User user,
+                                                         @Param("studentNos") Collection<String> studentNos,
+                                                         Pageable pageable);
+
+    // 按学号包含关系分页查询（DTO 投影）；与派生查询的 Containing 一致，转义输入中的 % 与 _
+    @Query(value = SELECT_DTO + "WHERE s.user = :user AND s.studentNo LIKE %:#{escape(#studentNo)}% ESCAPE :#{escapeCharacter()}",
+            countQuery = "SELECT COUNT(s) FROM Student s WHERE s.user = :user "
+                    + "AND s.studentNo LIKE %:#{escape(#studentNo)}% ESCAPE :#{escapeCharacter()}")
+    Page<StudentResponseDto> findDtoByUserAndStudentNoContaining(@Param("user") User user,
+                                                                 @Param("studentNo") String studentNo,
+                                                                 Pageable pageable);
+
+    // 根据ID和用户查询学生详情（DTO 投影）
+    @Query(SELECT_DTO + "WHERE s.id = :id AND s.user = :user")
+    Optional<StudentResponseDto> findDtoByIdAndUser(@Param("id") Long id, @Param("user") User user);
     
     // 检查学生ID是否存在且属于该用户
     boolean existsByIdAndUser(Long id, User user);
+
+    // 按主键做键集（keyset）分段读取：取 id 大于上一段末尾的下一段，导出时逐段读取避免一次加载全部数据
+    // 导出会顺序读完用户的全部学生，不写入二级缓存，以免挤掉缓存中的常用数据
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE"))
+    List<Student> findByUserAndIdGreaterThanOrderByIdAsc(User user, Long id, Limit limit);
+
+    // 一次性查询该用户的全部学号（批量导入时用于内存去重）
+    @Query("SELECT s.studentNo FROM Student s WHERE s.user = :user")
+    List<String> findStudentNosByUser(@Param("user") User user);
+
+    // 批量操作：查询 ids 中属于该用户的学生，每行为 [id, studentNo]
+    @Query("SELECT s.id, s.studentNo FROM Student s WHERE s.user = :user AND s.id IN :ids")
+    List<Object[]> findStudentNosByUserAndIdIn(@Param("user") User user, @Param("ids") Collection<Long> ids);
+
+    // 批量操作：按学号查询该用户已有的学生，每行为 [id, studentNo]
+    @Query("SELECT s.id, s.studentNo FROM Student s WHERE s.user = :user AND s.studentNo IN :studentNos")
+    List<Object[]> findIdsByUserAndStudentNoIn(@Param("user") User user, @Param("studentNos") Collection<String> studentNos);
+
+    // 批量删除：一条 DELETE ... WHERE user_id = ? AND id IN (...)
+    @Modifying
+    @Query("DELETE FROM Student s WHERE s.user = :user AND s.id IN :ids")
+    int deleteByUserAndIdIn(@Param("user") User user, @Param("ids") Collection<Long> ids);
+
+    // 批量修改：参数为 null 的字段保持原值
+    @Modifying
+    @Query("UPDATE Student s SET s.className = COALESCE(:className, s.className), " +
+            "s.gender = COALESCE(:gender, s.gender), s.address = COALESCE(:address, s.address) " +
+            "WHERE s.user = :user AND s.id IN :ids")
+    int patchByUserAndIdIn(@Param("user") User user, @Param("ids") Collection<Long> ids,
+                           @Param("className") String className, @Param("gender") String gender,
+                           @Param("address") String address);
+
+    // 统计：按性别分组计数，每行为 [gender, count]
+    @Query("SELECT s.gender, COUNT(s) FROM Student s WHERE s.user = :user GROUP BY s.gender")
+    List<Object[]> countByGender(@Param("user") User user);
+
+    // 统计：按班级分组计数（人数降序），每行为 [className, count]
+    @Query("SELECT s.className, COUNT(s) FROM Student s WHERE s.user = :user GROUP BY s.className ORDER BY COUNT(s) DESC")
+    List<Object[]> countByClassName(@Param("user") User user);
+
+    // 统计：按出生日期落入的区间计数，一行 [未知, <b1, [b1,b2), [b2,b3), [b3,b4), >=b4]，
+    // 参数为各年龄边界对应的出生日期上限（今天减去该周岁），出生日期晚于它即未满该年龄
+    @Query("SELECT SUM(CASE WHEN s.dob IS NULL THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.dob > :b1 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.dob <= :b1 AND s.dob > :b2 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.dob <= :b2 AND s.dob > :b3 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.dob <= :b3 AND s.dob > :b4 THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN s.dob <= :b4 THEN 1 ELSE 0 END) " +
+            "FROM Student s WHERE s.user = :user")
+    List<Object[]> countByAgeGroup(@Param("user") User user, @Param("b1") LocalDate b1, @Param("b2") LocalDate b2,
+                                   @Param("b3") LocalDate b3, @Param("b4") LocalDate b4);
 }
@@ -2,13 +2,23 @@ package com.example.studentsystem.repository;
 
 import com.example.studentsystem.model.Role;
 import com.example.studentsystem.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 // 是一个 Spring Data JPA 的 "仓库" 接口，声明了对 User 实体的持久化操作
 public interface UserRepository extends JpaRepository<User, Long> {
+    // 登录与用户缓存未命中时按用户名查询；开启二级缓存时结果进入查询缓存，users 表有写入即失效
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user-by-username")
+    })
     Optional<User> findByUsername(String username);
     
     Optional<User> findByEmail(String email);
@@ -18,4 +28,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // 统计包含特定角色的用户数量
     @Query("SELECT COUNT(u) FROM User u JOIN u.roles r WHERE r = :role")
     long countByRolesContaining(@Param("role") Role role);
+
+    // 按角色分组统计用户数量（一次查询），每行为 [role, count]
+    @Query("SELECT r, COUNT(u) FROM User u JOIN u.roles r GROUP BY r")
+    List<Object[]> countUsersByRole();
+
+    // 查询指定时间之后吊销过 token 的用户（用户 ID 与吊销时间），供各实例增量同步
+    @Query("SELECT u.id, u.tokensValidAfter FROM User u WHERE u.tokensValidAfter >= :since")
+    List<Object[]> findTokenCutoffsSince(@Param("since") Instant since);
 }
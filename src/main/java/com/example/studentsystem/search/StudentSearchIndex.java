@@ -0,0 +1,345 @@
+package com.example.studentsystem.search;
+
+import com.example.studentsystem.event.StudentChangeEvent;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.Tokenizer;
+import org.apache.lucene.analysis.ngram.NGramTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 学生全文检索索引（嵌入式 Lucene）。
+ * - 检索字段：学号、姓名、班级、监护人手机号、地址、性别，均建立 n-gram 分词字段（1~3 字），支持中文姓名等任意片段的包含匹配；
+ *   学号、姓名、手机号另建小写关键字字段，用于精确/前缀匹配加权以及模糊匹配（允许 1 个字符差异）。
+ * - 每个文档只存储学生 ID，查询结果由调用方按 ID 回库读取，数据库仍是唯一数据源。
+ * - 启动完成后在后台线程按主键分段从数据库全量重建（索引目录以 CREATE 模式打开），重建完成前 search 返回空 Optional。
+ * - 通过 StudentChangeEvent 增量同步（事务提交后从数据库读取最新数据写入）；重建的每一段与增量写入在同一把锁内
+ *   "读库 + 写索引"，因此两者交错时以后执行者读到的最新数据为准，不会留下旧版本。
+ * - 写入后不在请求线程上重新打开 searcher：由后台线程（ControlledRealTimeReopenThread）每隔
+ *   app.search.lucene.refresh-interval-ms（默认 1000）刷新一次，增量修改最多延迟该时间后可被检索到。
+ */
+@Component
+public class StudentSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudentSearchIndex.class);
+
+    private static final int MAX_GRAM = 3;
+    private static final String ID = "id";
+    private static final String USER = "user";
+    private static final String KEYWORD_SUFFIX = "_kw";
+    // 检索字段（实体属性名）与对应列名
+    private static final String[] FIELDS = {"studentNo", "name", "className", "phone", "address", "gender"};
+    // 另建关键字字段、参与精确/前缀加权与模糊匹配的字段（其余字段仅做包含匹配，减少查询子句数）
+    private static final Set<String> KEYWORD_FIELDS = Set.of("studentNo", "name", "phone");
+
+    private static final String SELECT = "SELECT id, user_id, student_no, name, class_name, phone, address, gender FROM students ";
+    private static final RowMapper<IndexedStudent> ROW_MAPPER = (rs, i) -> new IndexedStudent(
+            rs.getLong("id"), rs.getLong("user_id"), new String[]{
+            rs.getString("student_no"), rs.getString("name"), rs.getString("class_name"),
+            rs.getString("phone"), rs.getString("address"), rs.getString("gender")});
+
+    /**
+     * 一页检索结果：按相关度排序的学生 ID 与命中总数。
+     */
+    public record Hits(List<Long> ids, long total) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int rebuildChunkSize;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+    private volatile boolean ready;
+    private volatile boolean closed;
+
+    public StudentSearchIndex(JdbcTemplate jdbcTemplate,
+                              @Value("${app.search.lucene.enabled:true}") boolean enabled,
+                              @Value("${app.search.lucene.path:${java.io.tmpdir}/student-system-search}") String path,
+                              @Value("${app.search.lucene.rebuild-chunk-size:2000}") int rebuildChunkSize,
+                              @Value("${app.search.lucene.refresh-interval-ms:1000}") long refreshIntervalMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.rebuildChunkSize = Math.max(1, rebuildChunkSize);
+        if (!enabled) return;
+        try {
+            directory = FSDirectory.open(Path.of(path));
+            IndexWriterConfig config = new IndexWriterConfig(new NGramAnalyzer())
+                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE);
+            writer = new IndexWriter(directory, config);
+            searcherManager = new SearcherManager(writer, null);
+            double staleSec = Math.max(10, refreshIntervalMs) / 1000.0;
+            reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager, staleSec, staleSec);
+            reopenThread.setName("student-search-reopen");
+            reopenThread.setDaemon(true);
+            reopenThread.start();
+        } catch (IOException e) {
+            // 索引目录不可用（如被另一实例锁定）时仅禁用检索，不影响应用启动
+            logger.warn("无法打开学生全文索引目录 {}，已禁用全文检索: {}", path, e.getMessage());
+            closeQuietly();
+        }
+    }
+
+    /**
+     * 是否可以检索（已启用且初次重建完成）
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 应用启动完成后在后台线程重建索引，不阻塞启动
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (writer == null) return;
+        Thread thread = new Thread(this::rebuild, "student-search-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void rebuild() {
+        long start = System.nanoTime();
+        long lastId = 0;
+        long total = 0;
+        try {
+            while (!closed) {
+                List<IndexedStudent> chunk;
+                writeLock.lock();
+                try {
+                    chunk = jdbcTemplate.query(SELECT + "WHERE id > ? ORDER BY id LIMIT ?", ROW_MAPPER, lastId, rebuildChunkSize);
+                    for (IndexedStudent student : chunk) {
+                        writer.updateDocument(new Term(ID, Long.toString(student.id())), toDocument(student));
+                    }
+                } finally {
+                    writeLock.unlock();
+                }
+                if (chunk.isEmpty()) break;
+                lastId = chunk.get(chunk.size() - 1).id();
+                total += chunk.size();
+            }
+            writer.commit();
+            searcherManager.maybeRefreshBlocking();
+            ready = true;
+            logger.info("学生全文索引重建完成: {} 条, 耗时 {} ms", total, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            if (!closed) {
+                logger.error("学生全文索引重建失败", e);
+            }
+        }
+    }
+
+    // 事务提交后按事件从数据库读取最新数据同步到索引（只写 IndexWriter，searcher 由后台线程刷新）；
+    // 失败只记录日志，不影响已提交的业务写入
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChange(StudentChangeEvent event) {
+        if (writer == null) return;
+        writeLock.lock();
+        try {
+            if (writer == null) return; // 已关闭
+            switch (event.type()) {
+                case CREATED, UPDATED -> {
+                    List<IndexedStudent> rows = jdbcTemplate.query(SELECT + "WHERE id = ?", ROW_MAPPER, event.studentId());
+                    if (rows.isEmpty()) {
+                        writer.deleteDocuments(new Term(ID, event.studentId().toString()));
+                    } else {
+                        writer.updateDocument(new Term(ID, event.studentId().toString()), toDocument(rows.get(0)));
+                    }
+                }
+                case DELETED -> writer.deleteDocuments(new Term(ID, event.studentId().toString()));
+                case BULK_CREATED -> {
+                    List<Object> args = new ArrayList<>(event.studentNos().size() + 1);
+                    args.add(event.userId());
+                    args.addAll(event.studentNos());
+                    String in = String.join(",", Collections.nCopies(event.studentNos().size(), "?"));
+                    for (IndexedStudent student : jdbcTemplate.query(
+                            SELECT + "WHERE user_id = ? AND student_no IN (" + in + ")", ROW_MAPPER, args.toArray())) {
+                        writer.updateDocument(new Term(ID, Long.toString(student.id())), toDocument(student));
+                    }
+                }
+                case BULK_UPDATED -> {
+                    List<Object> args = new ArrayList<>(event.studentIds().size() + 1);
+                    args.add(event.userId());
+                    args.addAll(event.studentIds());
+                    String in = String.join(",", Collections.nCopies(event.studentIds().size(), "?"));
+                    for (IndexedStudent student : jdbcTemplate.query(
+                            SELECT + "WHERE user_id = ? AND id IN (" + in + ")", ROW_MAPPER, args.toArray())) {
+                        writer.updateDocument(new Term(ID, Long.toString(student.id())), toDocument(student));
+                    }
+                }
+                case BULK_DELETED -> {
+                    for (Long id : event.studentIds()) {
+                        writer.deleteDocuments(new Term(ID, id.toString()));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("更新学生全文索引失败 {}: {}", event, e.getMessage());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 在指定用户的学生中检索。
+     * 查询串按空白切分为多个词，每个词须在任一字段中命中；结果按相关度排序（精确 > 前缀 > 包含 > 模糊）。
+     * 长于 3 字的词按 3 字片段全部命中判定包含，属近似匹配。
+     * 索引未启用或尚未重建完成时返回空 Optional。
+     * @throws IllegalArgumentException offset 为负数，或 offset + limit 超出 int 范围（调用方应先限制翻页深度）
+     */
+    public Optional<Hits> search(Long userId, String text, int offset, int limit) throws IOException {
+        if (offset < 0 || limit < 1 || (long) offset + limit > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("检索结果的偏移量超出范围");
+        }
+        if (!ready) return Optional.empty();
+        Query query = buildQuery(userId, text);
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(query, offset + limit);
+            long total = top.totalHits.relation == TotalHits.Relation.EQUAL_TO
+                    ? top.totalHits.value : searcher.count(query);
+            List<Long> ids = new ArrayList<>(limit);
+            ScoreDoc[] docs = top.scoreDocs;
+            for (int i = offset; i < docs.length; i++) {
+                ids.add(Long.parseLong(searcher.storedFields().document(docs[i].doc).get(ID)));
+            }
+            return Optional.of(new Hits(ids, total));
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    private static Query buildQuery(Long userId, String text) {
+        BooleanQuery.Builder root = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(USER, userId.toString())), BooleanClause.Occur.FILTER);
+        for (String word : text.trim().toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (word.isEmpty()) continue;
+            BooleanQuery.Builder anyField = new BooleanQuery.Builder();
+            for (String field : FIELDS) {
+                anyField.add(fieldQuery(field, word), BooleanClause.Occur.SHOULD);
+            }
+            root.add(anyField.build(), BooleanClause.Occur.MUST);
+        }
+        return root.build();
+    }
+
+    private static Query fieldQuery(String field, String word) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        // 包含：不超过 MAX_GRAM 的词本身就是一个 n-gram；更长的词拆为首尾相接的 MAX_GRAM 片段，要求全部命中
+        if (word.length() <= MAX_GRAM) {
+            query.add(new TermQuery(new Term(field, word)), BooleanClause.Occur.SHOULD);
+        } else {
+            BooleanQuery.Builder grams = new BooleanQuery.Builder();
+            for (int i = 0; i + MAX_GRAM <= word.length(); i++) {
+                grams.add(new TermQuery(new Term(field, word.substring(i, i + MAX_GRAM))), BooleanClause.Occur.MUST);
+            }
+            query.add(grams.build(), BooleanClause.Occur.SHOULD);
+        }
+        if (KEYWORD_FIELDS.contains(field)) {
+            String keyword = field + KEYWORD_SUFFIX;
+            query.add(new BoostQuery(new PrefixQuery(new Term(keyword, word)), 2f), BooleanClause.Occur.SHOULD);
+            query.add(new BoostQuery(new TermQuery(new Term(keyword, word)), 4f), BooleanClause.Occur.SHOULD);
+            // 过短的词做模糊匹配会命中大量无关记录（如两字姓名），仅对较长的词启用
+            if (word.length() >= 4) {
+                query.add(new BoostQuery(new FuzzyQuery(new Term(keyword, word), 1), 0.5f), BooleanClause.Occur.SHOULD);
+            }
+        }
+        return query.build();
+    }
+
+    private static Document toDocument(IndexedStudent student) {
+        Document doc = new Document();
+        doc.add(new StringField(ID, Long.toString(student.id()), Field.Store.YES));
+        doc.add(new StringField(USER, Long.toString(student.userId()), Field.Store.NO));
+        for (int i = 0; i < FIELDS.length; i++) {
+            String value = student.values()[i];
+            if (value == null || value.isBlank()) continue;
+            doc.add(new TextField(FIELDS[i], value, Field.Store.NO));
+            if (KEYWORD_FIELDS.contains(FIELDS[i])) {
+                doc.add(new StringField(FIELDS[i] + KEYWORD_SUFFIX, value.toLowerCase(Locale.ROOT), Field.Store.NO));
+            }
+        }
+        return doc;
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        writeLock.lock();
+        try {
+            closeQuietly();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void closeQuietly() {
+        ready = false;
+        try {
+            if (reopenThread != null) reopenThread.close();
+            if (searcherManager != null) searcherManager.close();
+            if (writer != null) writer.close();
+            if (directory != null) directory.close();
+        } catch (IOException e) {
+            logger.warn("关闭学生全文索引失败: {}", e.getMessage());
+        }
+        reopenThread = null;
+        searcherManager = null;
+        writer = null;
+        directory = null;
+    }
+
+    // 索引用的学生数据，values 与 FIELDS 顺序一致
+    private record IndexedStudent(long id, long userId, String[] values) {
+    }
+
+    /**
+     * 1~MAX_GRAM 字的 n-gram 分词并转小写，用于任意片段的包含匹配（适用于中文姓名、地址等无空格文本）。
+     */
+    private static final class NGramAnalyzer extends Analyzer {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            Tokenizer tokenizer = new NGramTokenizer(1, MAX_GRAM);
+            return new TokenStreamComponents(tokenizer, new LowerCaseFilter(tokenizer));
+        }
+    }
+}
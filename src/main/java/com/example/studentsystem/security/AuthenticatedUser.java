@@ -0,0 +1,70 @@
+package com.example.studentsystem.security;
+
+import com.example.studentsystem.model.Role;
+import com.example.studentsystem.model.User;
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 已认证请求的轻量级身份（放入 SecurityContext 的 principal）。
+ * - 只包含 ID、用户名与角色，不含密码等敏感字段；既可由数据库中的 User 构造，也可在无状态模式下直接由已校验的 JWT claims 构造。
+ * - 业务层方法以 User 作为数据归属参数，控制器通过 @CurrentUser 获得仅带 ID、用户名与角色的 User（toUser），
+ *   其只用于按 ID 关联与查询，不是受持久化上下文管理的实体。
+ * @param id       用户 ID
+ * @param username 用户名
+ * @param roles    角色集合
+ */
+public record AuthenticatedUser(Long id, String username, Set<Role> roles) implements AuthenticatedPrincipal {
+
+    public AuthenticatedUser {
+        roles = roles.isEmpty() ? Set.of() : Set.copyOf(EnumSet.copyOf(roles));
+    }
+
+    /**
+     * 由数据库中的用户构造
+     */
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRoles());
+    }
+
+    /**
+     * 由 JWT 中的角色名构造，忽略无法识别的角色
+     */
+    public static AuthenticatedUser of(Long id, String username, List<String> roleNames) {
+        EnumSet<Role> roles = EnumSet.noneOf(Role.class);
+        for (String name : roleNames) {
+            try {
+                roles.add(Role.valueOf(name));
+            } catch (IllegalArgumentException ignored) {
+                // 未知角色不授予任何权限
+            }
+        }
+        return new AuthenticatedUser(id, username, roles);
+    }
+
+    /**
+     * 转换为 Spring Security 的权限列表（角色名即权限字符串，如 "ROLE_ADMIN"）
+     */
+    public List<GrantedAuthority> authorities() {
+        return roles.stream().<GrantedAuthority>map(r -> new SimpleGrantedAuthority(r.name())).toList();
+    }
+
+    /**
+     * 转换为只带 ID、用户名与角色的 User，供以 User 为参数的业务方法使用（不会触发数据库查询）
+     */
+    public User toUser() {
+        User user = new User(username, null, roles);
+        user.setId(id);
+        return user;
+    }
+
+    @Override
+    public String getName() {
+        return username;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.studentsystem.security;
+
+import com.example.studentsystem.exception.ServiceBusyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 在专用的有界线程池中执行密码哈希的 PasswordEncoder 装饰器。
+ * - BCrypt 是刻意设计的 CPU 密集运算，登录高峰时若在 Tomcat 请求线程上直接计算，会占满所有核心并拖慢其它接口；
+ *   这里把 encode / matches 提交到固定线程数的线程池，同时进行的哈希数不超过线程数。
+ * - 等待队列有上限：队列已满立即拒绝，排队超过 timeoutMs 也放弃，两种情况都抛出 ServiceBusyException（503 + Retry-After），
+ *   不让请求线程无限堆积。
+ * - 调用方线程仍同步等待结果，对 DaoAuthenticationProvider、UserService 等使用方透明。
+ * - upgradeEncoding 在已存储哈希的 BCrypt 强度与当前配置不同时返回 true（升高或降低都会触发），
+ *   配合 UserDetailsPasswordService 在登录成功时按新强度重新哈希。
+ * - 记录哈希耗时（不含排队）与排队耗时，供管理员接口查看。
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    // BCrypt 哈希格式：$2a$10$...，第二段为强度（log2 轮数）
+    private static final Pattern BCRYPT_STRENGTH = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final PasswordEncoder delegate;
+    private final int strength;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+
+    private final LongAdder encodeCount = new LongAdder();
+    private final LongAdder matchCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAccumulator maxHashNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * @param delegate          实际执行哈希的编码器
+     * @param strength          delegate 使用的 BCrypt 强度
+     * @param threads           哈希线程数
+     * @param queueCapacity     等待队列容量
+     * @param timeoutMs         调用方最长等待时间（排队 + 计算）
+     * @param retryAfterSeconds 拒绝时建议客户端的重试间隔
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int strength, int threads, int queueCapacity,
+                                  long timeoutMs, long retryAfterSeconds) {
+        this.delegate = delegate;
+        this.strength = strength;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + threadNo.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        encodeCount.increment();
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        matchCount.increment();
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher m = BCRYPT_STRENGTH.matcher(encodedPassword);
+        return m.find() ? Integer.parseInt(m.group(1)) != strength : delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * 线程池与哈希耗时统计
+     */
+    public Map<String, Object> metrics() {
+        long hashes = encodeCount.sum() + matchCount.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("strength", strength);
+        metrics.put("threads", executor.getMaximumPoolSize());
+        metrics.put("active", executor.getActiveCount());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("encodeCount", encodeCount.sum());
+        metrics.put("matchCount", matchCount.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("avgHashMs", hashes == 0 ? 0.0 : hashNanos.sum() / 1_000_000.0 / hashes);
+        metrics.put("maxHashMs", maxHashNanos.get() / 1_000_000.0);
+        metrics.put("avgWaitMs", hashes == 0 ? 0.0 : waitNanos.sum() / 1_000_000.0 / hashes);
+        metrics.put("maxWaitMs", maxWaitNanos.get() / 1_000_000.0);
+        return metrics;
+    }
+
+    /**
+     * 容器关闭时停止线程池（@Bean 的 destroyMethod 自动推断为 shutdown）
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> hash) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(waitNanos, maxWaitNanos, startedAt - submittedAt);
+                try {
+                    return hash.call();
+                } finally {
+                    record(hashNanos, maxHashNanos, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw busy();
+        }
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+            future.cancel(true);
+            throw busy();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw busy();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private ServiceBusyException busy() {
+        return new ServiceBusyException("服务繁忙，请稍后重试", retryAfterSeconds);
+    }
+
+    private static void record(LongAdder total, LongAccumulator max, long nanos) {
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.studentsystem.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 解析请求的真实客户端 IP。
+ * - 只有直接连接方（remoteAddr）属于 app.security.trusted-proxies（逗号分隔，支持单个地址与 CIDR，如 10.0.0.0/8）时，
+ *   才读取 X-Forwarded-For：从右向左跳过可信代理，第一个不可信的地址即为客户端；全部可信时取最左边的地址。
+ * - 未配置可信代理时直接返回 remoteAddr，客户端自行填写的 X-Forwarded-For 不会被采信。
+ */
+@Component
+public class ClientIpResolver {
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+    // IPv4 或 IPv6 字面量；其它字符串不交给 IpAddressMatcher，避免触发 DNS 解析
+    private static final Pattern IP_LITERAL = Pattern.compile("\\d{1,3}(\\.\\d{1,3}){3}|[0-9a-fA-F:.]*:[0-9a-fA-F:.]*");
+
+    private final List<IpAddressMatcher> trustedProxies;
+
+    public ClientIpResolver(@Value("${app.security.trusted-proxies:}") String trustedProxies) {
+        this.trustedProxies = Arrays.stream(trustedProxies.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (trustedProxies.isEmpty() || !isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+        String header = request.getHeader(FORWARDED_FOR);
+        if (header == null || header.isBlank()) {
+            return remoteAddr;
+        }
+        String[] hops = header.split(",");
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!hop.isEmpty() && !isTrusted(hop)) {
+                return hop;
+            }
+        }
+        String first = hops[0].trim();
+        return first.isEmpty() ? remoteAddr : first;
+    }
+
+    private boolean isTrusted(String address) {
+        if (!IP_LITERAL.matcher(address).matches()) {
+            return false;
+        }
+        try {
+            for (IpAddressMatcher matcher : trustedProxies) {
+                if (matcher.matches(address)) {
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // 格式像 IP 但不合法的条目视为不可信
+        }
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.studentsystem.security;
+
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 控制器参数注解：以 User 类型注入当前登录用户，即 AuthenticatedUser.toUser() 的结果（仅含 ID、用户名与角色，不查询数据库）。
+ * 需要 AuthenticatedUser 本身时直接使用 @AuthenticationPrincipal。
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@AuthenticationPrincipal(expression = "toUser()")
+public @interface CurrentUser {
+}
@@ -1,15 +1,30 @@
 package com.example.studentsystem.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 
 @Configuration
 public class SecurityBeansConfig {
+    /**
+     * 密码编码器：BCrypt 哈希在专用的有界线程池中执行（见 BoundedPasswordEncoder）
+     * - app.security.bcrypt.strength：BCrypt 强度（默认 10），修改后已有用户在下次登录成功时按新强度重新哈希
+     * - app.security.password-hashing.threads：哈希线程数，0 表示取 CPU 核数的一半（至少 1）
+     * - app.security.password-hashing.queue-capacity：等待队列容量，满后直接返回 503
+     * - app.security.password-hashing.timeout-ms：请求等待哈希结果的最长时间，超时返回 503
+     * - app.security.password-hashing.retry-after-seconds：503 响应中 Retry-After 的秒数
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
+    public BoundedPasswordEncoder passwordEncoder(
+            @Value("${app.security.bcrypt.strength:10}") int strength,
+            @Value("${app.security.password-hashing.threads:0}") int threads,
+            @Value("${app.security.password-hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${app.security.password-hashing.timeout-ms:5000}") long timeoutMs,
+            @Value("${app.security.password-hashing.retry-after-seconds:2}") long retryAfterSeconds) {
         //对用户密码进行加密，并在登录认证时进行密码匹配
-        return new BCryptPasswordEncoder();
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), strength,
+                poolSize, queueCapacity, timeoutMs, retryAfterSeconds);
     }
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.example.studentsystem.security;
 import com.example.studentsystem.security.jwt.JwtAuthenticationFilter;
 import com.example.studentsystem.service.UserService;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,6 +14,7 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -49,15 +51,28 @@ public class SecurityConfig {
     }
 
 
+    /*
+     * userDetailsPasswordService 方法：
+     * - 登录成功且 PasswordEncoder.upgradeEncoding 判断已存储的哈希需要升级（如 BCrypt 强度配置变更）时，
+     *   DaoAuthenticationProvider 用本次提交的明文重新哈希，并通过该服务写回数据库。
+     */
+    @Bean
+    public UserDetailsPasswordService userDetailsPasswordService(UserService userService) {
+        return userService::upgradePassword;
+    }
+
     // authenticationProvider 方法：
     // - 定义认证提供者（AuthenticationProvider）Bean。
     // - 使用 DaoAuthenticationProvider，结合 UserDetailsService 和 PasswordEncoder 进行认证。
+    // - 设置 UserDetailsPasswordService，登录时透明地按当前配置重新哈希旧密码。
     // - 注册为 Bean 后，Spring Security 在认证时会使用此提供者。
     @Bean
     public AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                         UserDetailsPasswordService userDetailsPasswordService,
                                                          PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsPasswordService(userDetailsPasswordService);
         return provider;
     }
     /*
@@ -97,6 +112,8 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 // 基于请求路径进行授权配置
                 .authorizeHttpRequests(authorize -> authorize
+                        // 异步请求（SSE 推送）结束时的 ASYNC 分派：原始请求已完成认证与授权，JWT 过滤器不再执行
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // 公开
                         .requestMatchers("/api/auth/**", "/h2-console/**", "/swagger-ui/**", "/v3/api-docs/**").permitAll()
                         // 允许已登录用户访问学生相关接口（包括模板下载和导入）
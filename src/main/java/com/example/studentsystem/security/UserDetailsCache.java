@@ -0,0 +1,77 @@
+package com.example.studentsystem.security;
+
+import com.example.studentsystem.model.User;
+import com.example.studentsystem.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 已认证请求使用的用户缓存（按用户名），避免 JwtAuthenticationFilter 每个请求都查询 users 与 user_roles 表。
+ * - 容量上限 app.security.user-cache.max-size（默认 10000），写入后 app.security.user-cache.ttl-seconds（默认 300 秒）过期。
+ * - 注册、重置密码、修改角色时由 UserService 主动失效对应条目；TTL 兜底其它途径（如直接改库）的变更。
+ * - 不存在的用户不缓存，每次都会查询并抛出 UsernameNotFoundException。
+ * - 缓存的 User 为脱离持久化上下文的实体，由多个请求共享，只读使用。
+ */
+@Component
+public class UserDetailsCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, User> cache;
+
+    public UserDetailsCache(UserRepository userRepository,
+                            @Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${app.security.user-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 按用户名获取用户，未命中时查询数据库并缓存
+     * @throws UsernameNotFoundException 用户不存在
+     */
+    public User get(String username) {
+        User user = cache.get(username, name -> userRepository.findByUsername(name).orElse(null));
+        if (user == null) {
+            throw new UsernameNotFoundException("用户不存在");
+        }
+        return user;
+    }
+
+    /**
+     * 失效指定用户的缓存
+     */
+    public void invalidate(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    /**
+     * 命中、未命中、淘汰等统计信息
+     */
+    public Map<String, Object> metrics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", cache.estimatedSize());
+        metrics.put("hitCount", stats.hitCount());
+        metrics.put("missCount", stats.missCount());
+        metrics.put("hitRate", stats.hitRate());
+        metrics.put("evictionCount", stats.evictionCount());
+        metrics.put("loadSuccessCount", stats.loadSuccessCount());
+        metrics.put("loadFailureCount", stats.loadFailureCount());
+        metrics.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+        return metrics;
+    }
+}
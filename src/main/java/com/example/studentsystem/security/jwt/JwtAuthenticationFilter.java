@@ -1,17 +1,20 @@
 package com.example.studentsystem.security.jwt;
 
+import com.example.studentsystem.security.AuthenticatedUser;
+import io.jsonwebtoken.Claims;
 import io.micrometer.common.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import com.example.studentsystem.service.UserService;
+import com.example.studentsystem.security.UserDetailsCache;
 
 import java.io.IOException;
 
@@ -28,29 +31,42 @@ import java.io.IOException;
  * - 仅在 SecurityContext 中尚未有 Authentication 的情况下进行解析与设置，避免覆盖已有认证（例如 session 登陆）。
  * - 如果把 JWT 存在 Cookie 并自动发送，会产生 CSRF 风险，本过滤器JWT 在 Authorization 头中传递。
  * - 对外部异常（如解析失败）应当安静处理并放行到下一个过滤器，由后续的安全链决定是否拒绝（通常会因无认证而返回 401）。
+ * - principal 统一为轻量的 AuthenticatedUser（ID、用户名、角色）。开启 app.security.stateless-auth 后直接由已校验的
+ *   JWT claims 构造，不访问用户缓存与数据库；代价是角色变更、删除用户要等到 token 过期才生效。
+ *   未携带 uid 的旧 token 仍回退到用户缓存。
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     // 负责 JWT 的生成/解析/校验逻辑（自定义服务）
     private final JwtService jwtService;
-    // 用于根据用户名加载用户信息（实现 UserDetailsService）
-    private final UserService userService;
+    // 按用户名获取用户信息（带 TTL 的本地缓存，避免每个请求都查询 users 表）
+    private final UserDetailsCache userDetailsCache;
+    // 已吊销 token 的内存检查（退出登录、重置密码后旧 token 失效）
+    private final TokenRevocationService tokenRevocationService;
+    // 是否仅凭 JWT claims 建立认证（无状态模式）
+    private final boolean statelessAuth;
 
-    public JwtAuthenticationFilter(JwtService jwtService, UserService userService) {
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   UserDetailsCache userDetailsCache,
+                                   TokenRevocationService tokenRevocationService,
+                                   @Value("${app.security.stateless-auth:false}") boolean statelessAuth) {
         this.jwtService = jwtService;
-        this.userService = userService;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.statelessAuth = statelessAuth;
     }
 
     /**
      * doFilterInternal
      * 核心流程（按顺序）：
      * 1. 从请求头获取 Authorization 字段，检查是否以 "Bearer " 开头。
-     * 2. 提取 token 并尝试解析得到用户名（extractUsername 可能在解析失败时抛出异常）。
+     * 2. 提取 token 并调用 jwtService.verify 一次完成签名、过期校验与解析（同一 token 的结果会被缓存），
+     *    再由 TokenRevocationService 检查是否已吊销。
      * 3. 如果解析出用户名，并且当前 SecurityContext 尚未包含 Authentication：
-     *    - 通过 UserService 加载 UserDetails（包含权限信息）。
-     *    - 使用 JwtService 验证 token 的有效性（例如签名、过期、载荷对比等）。
-     *    - 验证通过后，创建 UsernamePasswordAuthenticationToken 并设置到 SecurityContext 中。
+     *    - 无状态模式且 token 带有 uid 时，直接由 claims 中的 uid、用户名与角色构造 AuthenticatedUser。
+     *    - 否则通过 UserDetailsCache 获取用户（包含权限信息，缓存未命中时查询数据库）再构造 AuthenticatedUser。
+     *    - 得到身份后，创建 UsernamePasswordAuthenticationToken 并设置到 SecurityContext 中。
      * 4. 调用 filterChain.doFilter 将请求交给下一个过滤器或最终的资源处理器。
      *
      * 异常与容错：
@@ -63,16 +79,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
         // 从请求头读取 Authorization
         final String authHeader = request.getHeader("Authorization");
-        String username = null;
-        String token = null;
+        Claims claims = null;
 
         // 检查是否符合 "Bearer <token>" 格式
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             // 提取 token（跳过 "Bearer " 前缀）
-            token = authHeader.substring(7);
+            String token = authHeader.substring(7);
             try {
-                // 从 token 中提取用户名（可能抛出解析异常，例如签名错误或格式错误）
-                username = jwtService.extractUsername(token);
+                // 校验 token 并取出 claims（签名错误、过期或格式错误时抛出异常）
+                claims = jwtService.verify(token);
+                // 已吊销的 token 视为无效（只查内存中的布隆过滤器与黑名单，不访问数据库）
+                if (tokenRevocationService.isRevoked(claims)) {
+                    claims = null;
+                }
             } catch (Exception ignored) {
                 // 解析失败则忽略异常，不在此处抛出，后续因无认证会被拒绝
                 // 注意：记录日志在生产环境中是必要的（此处为简洁未加日志）
@@ -80,15 +99,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
 
         // 没有认证信息尝试校验并设置认证
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // 通过 UserService 加载用户详情（通常包含账号是否启用、权限列表等）
-            UserDetails userDetails = userService.loadUserByUsername(username);
+        if (claims != null && claims.getSubject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            AuthenticatedUser principal = resolvePrincipal(claims);
 
-            // 用户存在&& token 校验成功时才认为认证通过
-            if (userDetails != null && jwtService.validateToken(token)) {
+            // token 已在上方校验通过，身份可确定即认为认证通过
+            if (principal != null) {
                 // 创建已认证的 Authentication 对象，第三个参数为授权列表（authorities）
                 UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.authorities());
                 // 设置详情信息（包括远端地址、session id 等），有助于后续审计或细粒度策略
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 // 将认证结果放入 SecurityContext，后续请求处理和 @PreAuthorize 等会基于该认证进行授权判断
@@ -99,4 +118,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 无论是否设置了认证，都必须继续过滤链（否则请求会被中断）
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * 由已校验的 claims 确定当前身份，用户已不存在时返回 null
+     */
+    private AuthenticatedUser resolvePrincipal(Claims claims) {
+        String username = claims.getSubject();
+        Long userId = JwtService.userIdOf(claims);
+        if (statelessAuth && userId != null) {
+            return AuthenticatedUser.of(userId, username, JwtService.rolesOf(claims));
+        }
+        try {
+            // 从用户缓存获取用户（通常包含账号是否启用、权限列表等）
+            return AuthenticatedUser.of(userDetailsCache.get(username));
+        } catch (UsernameNotFoundException e) {
+            // token 对应的用户已不存在，不设置认证
+            return null;
+        }
+    }
 }
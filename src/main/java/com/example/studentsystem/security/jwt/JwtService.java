@@ -3,6 +3,10 @@ package com.example.studentsystem.security.jwt;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.WeakKeyException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,15 +15,22 @@ import jakarta.annotation.PostConstruct;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 
 /**
   采用HMAC对称签名密钥 Key认证.
  * 2. 生成包含主体 subject(用户名) 发行时间和过期时间的 JWT.
  * 3. 解析 token 提取用户名(Subject).
- * 4. 校验 token 签名 完整性 与是否过期
+ * 4. 校验 token 签名 完整性 与是否过期 (verify 一次校验返回全部 claims, 并缓存已校验 token 至其过期)
  * 设计要点:
  * - 使用 @Service 作为 Spring Bean 注入.
  * - 通过 @Value 注入配置源
@@ -38,6 +49,12 @@ public class JwtService {
     // 签名用的对称密钥 (HS256)
     private Key key;
 
+    // 基于 key 预先构建的解析器（线程安全），所有校验复用同一实例
+    private JwtParser parser;
+
+    // 已校验 token 的 claims 缓存：键为 token 的 SHA-256 摘要，条目在 token 过期时失效
+    private final Cache<String, Claims> verifiedTokens;
+
     // 注入的原始密钥字符串 (可能为空)
     private final String secret;
 
@@ -48,15 +65,22 @@ public class JwtService {
      * 构造函数
      *
      * @param secret          从配置中读取的密钥字符串 app.jwt.secret
-     * @param jwtExpirationMs token 过期毫秒数（24h） app.jwt.expiration-ms
+     * @param jwtExpirationMs 访问令牌过期毫秒数（默认 15 分钟，过期后用刷新令牌换取） app.jwt.expiration
      * 处理:
      * - 使用 Optional 去除 null 并 trim 空白.
      * - 不在此处直接生成 Key 而放到 @PostConstruct 方法 便于捕获异常与日志输出.
      */
     public JwtService(@Value("${app.jwt.secret:}") String secret,
-                      @Value("${app.jwt.expiration:86400000}") long jwtExpirationMs) {
+                      @Value("${app.jwt.expiration:900000}") long jwtExpirationMs,
+                      @Value("${app.jwt.verified-cache.max-size:10000}") long verifiedCacheSize) {
         this.secret = Optional.ofNullable(secret).orElse("").trim();
         this.jwtExpirationMs = jwtExpirationMs;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.creating((String hash, Claims claims) ->
+                        Duration.ofMillis(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()))))
+                .recordStats()
+                .build();
     }
 
     /**
@@ -89,21 +113,26 @@ public class JwtService {
             logger.error("初始化 JWT 密钥出现未预期异常 使用临时密钥继续启动 错误: ", ex);
             this.key = Keys.secretKeyFor(SignatureAlgorithm.HS256);
         }
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
     }
 
     /**
+     * @param userId 用户 ID (写入 uid claim, 无状态认证时用于直接构造身份)
      * @param username 作为 JWT 的 Subject (主体用户)
      * @param roles 用户的角色列表
      * @return 已签名并包含过期时间和角色信息的紧凑型 JWT 字符串
      * - 创建当前时间:now;过期时间:exp
-     * - 在 claims 中添加角色信息
+     * - 在 claims 中添加用户 ID 与角色信息
+     * - 随机 jti 作为 token 唯一标识，用于退出登录时单独吊销
      * -构建前端返回的token
     */
-    public String generateToken(String username, List<String> roles) {
+    public String generateToken(Long userId, String username, List<String> roles) {
         Date now = new Date();
         Date exp = new Date(now.getTime() + jwtExpirationMs);
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
+                .claim("uid", userId)  // 添加用户 ID 到 JWT
                 .claim("roles", roles)  // 添加角色信息到 JWT
                 .setIssuedAt(now)
                 .setExpiration(exp)
@@ -111,21 +140,39 @@ public class JwtService {
                 .compact();
     }
 
+    /**
+     * verify
+     * @param token 外部传入的 JWT
+     * @return 校验通过的全部 claims（只读使用，可能被多个请求共享）
+     * @throws JwtException 签名不匹配、过期或格式错误
+     * 说明:
+     * - 使用初始化时构建好的解析器，每次调用只做一次签名校验与 JSON 解析.
+     * - 校验通过的 token 以其 SHA-256 摘要为键缓存到过期时间为止，同一 token 再次请求时直接返回缓存的 claims，
+     *   不再重复 HMAC 校验与解析；缓存中不保存 token 原文.
+     */
+    public Claims verify(String token) {
+        String cacheKey = sha256(token);
+        Claims cached = verifiedTokens.getIfPresent(cacheKey);
+        if (cached != null && cached.getExpiration().getTime() > System.currentTimeMillis()) {
+            return cached;
+        }
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(cacheKey, claims);
+        }
+        return claims;
+    }
+
     /**
      * extractUsername
      * @param token 外部传入的 JWT
      * @return token 中的 Subject (用户名)
      * 说明:
-     * - parseClaimsJws 会在签名不匹配、过期 、格式错误时抛出 JwtException.
+     * - 基于 verify，签名不匹配、过期 、格式错误时抛出 JwtException.
      * - 调用方可在外层捕获异常 或在过滤器中 try-catch 后忽略处理.
      */
     public String extractUsername(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).getSubject();
     }
 
     /**
@@ -134,27 +181,40 @@ public class JwtService {
      * @return token 中的角色列表
      * 说明:
      * - 从 JWT claims 中提取角色信息
-     * - 若不存在则返回空列表
+     * - 若不存在或 token 无效则返回空列表
      */
-    @SuppressWarnings("unchecked")
     public List<String> extractRoles(String token) {
         try {
-            Claims claims = Jwts.parserBuilder()
-                    .setSigningKey(key)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-            Object rolesObj = claims.get("roles");
-            if (rolesObj instanceof List) {
-                return (List<String>) rolesObj;
-            }
-            return List.of();
+            return rolesOf(verify(token));
         } catch (JwtException ex) {
             logger.debug("提取角色失败: {}", ex.getMessage());
             return List.of();
         }
     }
 
+    /**
+     * userIdOf
+     * @param claims 已校验的 claims
+     * @return claims 中的用户 ID 旧版本签发的 token 不含该字段时返回 null
+     */
+    public static Long userIdOf(Claims claims) {
+        Object uid = claims.get("uid");
+        return uid instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * rolesOf
+     * @param claims 已校验的 claims
+     * @return claims 中的角色列表 不存在时返回空列表
+     */
+    public static List<String> rolesOf(Claims claims) {
+        Object rolesObj = claims.get("roles");
+        if (rolesObj instanceof List<?> list) {
+            return list.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+
     /**
      * validateToken
      *
@@ -167,11 +227,43 @@ public class JwtService {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
+            verify(token);
             return true;
         } catch (JwtException ex) {
             logger.debug("JWT 校验失败: {}", ex.getMessage());
             return false;
         }
     }
+
+    /**
+     * 已校验 token 缓存的统计信息
+     */
+    public Map<String, Object> verifiedCacheMetrics() {
+        CacheStats stats = verifiedTokens.stats();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", verifiedTokens.estimatedSize());
+        metrics.put("hitCount", stats.hitCount());
+        metrics.put("missCount", stats.missCount());
+        metrics.put("hitRate", stats.hitRate());
+        metrics.put("evictionCount", stats.evictionCount());
+        return metrics;
+    }
+
+    /**
+     * accessTokenTtlSeconds
+     * @return 访问令牌有效期（秒），随登录与刷新响应返回给客户端
+     */
+    public long accessTokenTtlSeconds() {
+        return jwtExpirationMs / 1000;
+    }
+
+    // token 摘要（十六进制），作为缓存键；刷新令牌也只以该摘要入库
+    static String sha256(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,150 @@
+package com.example.studentsystem.security.jwt;
+
+import com.example.studentsystem.model.RefreshToken;
+import com.example.studentsystem.model.User;
+import com.example.studentsystem.repository.RefreshTokenRepository;
+import com.example.studentsystem.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * 刷新令牌服务（轮换 + 重复使用检测）。
+ * - 登录时签发新家族的刷新令牌；访问令牌有效期较短（app.jwt.expiration，默认 15 分钟），过期后客户端用刷新令牌换取新的一对令牌。
+ * - 每个刷新令牌只能使用一次：刷新时标记旧令牌已使用，并签发同一家族的新令牌。
+ * - 已使用的令牌再次出现说明令牌可能被窃取，吊销整个家族，攻击者与合法用户都需要重新登录。
+ *   为避免客户端并发刷新（如多个请求同时发现访问令牌过期）被误判，使用后 app.jwt.refresh-reuse-grace-seconds（默认 10 秒）内
+ *   的重复使用只拒绝本次请求，不吊销家族。
+ * - 刷新时重新读取用户，新签发的访问令牌携带最新角色；重置密码、强制下线时吊销该用户的全部刷新令牌。
+ * - 令牌原文为 32 字节随机数的 Base64URL 编码，数据库只保存其 SHA-256 摘要。
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final Duration refreshTtl;
+    private final Duration reuseGrace;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 一次成功刷新的结果
+     * @param user         令牌所属用户（已从数据库重新加载）
+     * @param refreshToken 新的刷新令牌原文
+     */
+    public record Rotation(User user, String refreshToken) {}
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               @Value("${app.jwt.refresh-expiration:1209600000}") long refreshExpirationMs,
+                               @Value("${app.jwt.refresh-reuse-grace-seconds:10}") long reuseGraceSeconds) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.refreshTtl = Duration.ofMillis(refreshExpirationMs);
+        this.reuseGrace = Duration.ofSeconds(reuseGraceSeconds);
+    }
+
+    /**
+     * 登录成功后签发新家族的刷新令牌
+     * @return 刷新令牌原文
+     */
+    public String issue(User user) {
+        return create(user.getId(), UUID.randomUUID().toString(), Instant.now());
+    }
+
+    /**
+     * 使用刷新令牌换取同一家族的新令牌
+     * @param rawToken 客户端提交的刷新令牌原文
+     * @return 用户与新的刷新令牌
+     * @throws BadCredentialsException 令牌不存在、已过期、已吊销或已被使用
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public Rotation rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            throw new BadCredentialsException("刷新令牌不能为空");
+        }
+        RefreshToken token = refreshTokenRepository.findByTokenHash(JwtService.sha256(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("刷新令牌无效"));
+        Instant now = Instant.now();
+        if (token.isRevoked()) {
+            throw new BadCredentialsException("刷新令牌已失效，请重新登录");
+        }
+        if (token.getUsedAt() != null) {
+            if (token.getUsedAt().plus(reuseGrace).isBefore(now)) {
+                // 已轮换过的令牌被再次使用，可能已泄露：吊销整个家族（不回滚）
+                int revoked = refreshTokenRepository.revokeFamily(token.getFamilyId());
+                logger.warn("检测到刷新令牌重复使用，用户 {} 的令牌家族 {} 已吊销 {} 个令牌",
+                        token.getUserId(), token.getFamilyId(), revoked);
+            }
+            throw new BadCredentialsException("刷新令牌已被使用，请重新登录");
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new BadCredentialsException("刷新令牌已过期，请重新登录");
+        }
+        User user = userRepository.findById(token.getUserId())
+                .orElseThrow(() -> new BadCredentialsException("用户不存在"));
+
+        token.setUsedAt(now);
+        refreshTokenRepository.save(token);
+        return new Rotation(user, create(user.getId(), token.getFamilyId(), now));
+    }
+
+    /**
+     * 退出登录：吊销刷新令牌所在的整个家族，未知令牌忽略
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHash(JwtService.sha256(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    /**
+     * 吊销用户的全部刷新令牌（重置密码、强制下线）
+     */
+    public void revokeAll(Long userId) {
+        refreshTokenRepository.revokeByUserId(userId);
+    }
+
+    /**
+     * 定期删除已过期的刷新令牌
+     */
+    @Scheduled(initialDelayString = "${app.jwt.refresh-purge-interval-ms:3600000}",
+            fixedDelayString = "${app.jwt.refresh-purge-interval-ms:3600000}")
+    public void purge() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            logger.info("清理过期的刷新令牌 {} 条", deleted);
+        }
+    }
+
+    private String create(Long userId, String familyId, Instant now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(JwtService.sha256(raw))
+                .userId(userId)
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plus(refreshTtl))
+                .build());
+        return raw;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.studentsystem.security.jwt;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 吊销 jti 的布隆过滤器，作为黑名单查询的快速路径。
+ * - 绝大多数请求的 jti 不在黑名单中，mightContain 返回 false 即可直接放行，只需计算一次哈希并读取 k 个位，
+ *   不访问哈希表。返回 true 时再由精确集合确认（存在误判，但不会漏判）。
+ * - 位数组为 AtomicLongArray：读取无锁，写入用 CAS 置位，可与读取并发；只增不删，清理过期条目时整体重建替换。
+ * - 哈希采用双重哈希（h1 + i * h2），两个分量取自 String.hashCode 经 fmix64 打散后的高低 32 位。
+ *   String 会缓存自身的 hashCode，而 JwtService 缓存了已校验 token 的 claims，同一 token 的后续请求拿到的是
+ *   同一个 jti 字符串，哈希无需逐字符重新计算；32 位哈希冲突带来的额外误判由精确集合兜底。
+ */
+final class RevocationBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    // 位数取 2 的幂，下标用掩码代替取模
+    private final long mask;
+    private final int hashCount;
+
+    /**
+     * @param expectedEntries    预计容纳的条目数
+     * @param falsePositiveRate 期望误判率（如 0.01）
+     */
+    RevocationBloomFilter(long expectedEntries, double falsePositiveRate) {
+        long n = Math.max(1, expectedEntries);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, Long.highestOneBit(Math.max(1, (m + 63) / 64) * 2 - 1));
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.mask = bitCount - 1;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    void put(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = (h1 + (long) i * h2) & mask;
+            int word = (int) (index >>> 6);
+            long bit = 1L << index;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & bit) != 0) break;
+            } while (!bits.compareAndSet(word, current, current | bit));
+        }
+    }
+
+    boolean mightContain(String value) {
+        long hash = hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long index = (h1 + (long) i * h2) & mask;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    // 由 String.hashCode 扩展为 64 位（murmur3 的 fmix64）
+    private static long hash64(String value) {
+        long h = value.hashCode() * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.studentsystem.security.jwt;
+
+import com.example.studentsystem.model.RevokedToken;
+import com.example.studentsystem.model.User;
+import com.example.studentsystem.repository.RevokedTokenRepository;
+import com.example.studentsystem.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JWT 吊销服务，支持两种粒度：
+ * 1. 单个 token：按 jti 写入 revoked_tokens 黑名单（退出登录）。
+ * 2. 用户全部 token：更新 users.tokens_valid_after，此前签发的 token 全部失效（重置密码、管理员强制下线）。
+ *
+ * 请求路径上的检查（isRevoked）只访问内存：
+ * - jti 先查布隆过滤器，未命中（绝大多数请求）直接放行；命中时再查精确集合排除误判。
+ * - 用户级截止时间保存在 userId -> 秒级时间戳的 Map 中，没有任何吊销时只做一次 isEmpty 判断。
+ *
+ * 内存状态的同步：
+ * - 本实例发起的吊销在写库后立即生效。
+ * - 其它实例的吊销由定时任务按 revoked_tokens.revoked_at 与 users.tokens_valid_after 时间增量拉取，
+ *   间隔 app.security.revocation.refresh-interval-ms（默认 5 秒），即跨实例的吊销最多延迟一个刷新间隔。
+ *   每次都从上次同步时间往前多取一个重叠窗口：并发写入的提交顺序与时间 / ID 顺序不一定一致，
+ *   晚提交的记录仍会在窗口内被读到；重复读到的记录再次加入黑名单没有影响。
+ * - 另一个定时任务删除已过期的记录，并重建布隆过滤器（布隆过滤器不支持删除）。
+ *
+ * 限制：本功能上线前签发的 token 不含 jti / uid，无法单独吊销，只能等待其自然过期。
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    // 增量拉取的批大小
+    private static final int SYNC_BATCH = 1000;
+    // 按时间增量拉取时向前多取的重叠窗口，覆盖实例间时钟偏差与事务提交延迟
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long expectedEntries;
+    private final long jwtExpirationMs;
+
+    // jti -> token 过期时间（毫秒）
+    private final Map<String, Long> revokedJtis = new ConcurrentHashMap<>();
+    // userId -> 截止时间（秒），签发时间不晚于该秒的 token 失效
+    private final Map<Long, Long> userCutoffs = new ConcurrentHashMap<>();
+    // 写入黑名单与重建布隆过滤器互斥，读取无锁
+    private final Object writeLock = new Object();
+    private volatile RevocationBloomFilter bloom;
+
+    private volatile Instant lastRevokedSync = Instant.EPOCH;
+    private volatile Instant lastCutoffSync = Instant.EPOCH;
+    private volatile Instant lastRefreshAt;
+
+    private final LongAdder bloomHits = new LongAdder();
+    private final LongAdder bloomFalsePositives = new LongAdder();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  UserRepository userRepository,
+                                  @Value("${app.security.revocation.enabled:true}") boolean enabled,
+                                  @Value("${app.security.revocation.expected-entries:100000}") long expectedEntries,
+                                  @Value("${app.jwt.expiration:900000}") long jwtExpirationMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.expectedEntries = expectedEntries;
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.bloom = new RevocationBloomFilter(expectedEntries, BLOOM_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * 启动时全量加载未过期的吊销记录
+     */
+    @PostConstruct
+    void load() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            logger.warn("加载 token 吊销列表失败，将在下次定时刷新时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 判断已校验的 token 是否已被吊销（每个认证请求调用一次，只访问内存）
+     */
+    public boolean isRevoked(Claims claims) {
+        if (!enabled) {
+            return false;
+        }
+        String jti = claims.getId();
+        if (jti != null && bloom.mightContain(jti)) {
+            bloomHits.increment();
+            if (revokedJtis.containsKey(jti)) {
+                return true;
+            }
+            bloomFalsePositives.increment();
+        }
+        if (userCutoffs.isEmpty()) {
+            return false;
+        }
+        Long userId = JwtService.userIdOf(claims);
+        Long cutoff = userId != null ? userCutoffs.get(userId) : null;
+        if (cutoff == null) {
+            return false;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        // iat 只精确到秒，与截止时间同一秒签发的 token 无法区分先后，一律视为已吊销
+        return issuedAt == null || issuedAt.getTime() / 1000 <= cutoff;
+    }
+
+    /**
+     * 吊销单个 token（退出登录）
+     * @param claims 已校验的 claims
+     * @throws IllegalArgumentException token 不含 jti（本功能上线前签发）
+     */
+    public void revoke(Claims claims) {
+        String jti = claims.getId();
+        if (jti == null) {
+            throw new IllegalArgumentException("该 token 不支持单独注销，请等待其过期");
+        }
+        if (revokedJtis.containsKey(jti)) {
+            return;
+        }
+        Instant expiresAt = claims.getExpiration().toInstant();
+        try {
+            revokedTokenRepository.save(RevokedToken.builder()
+                    .jti(jti)
+                    .userId(JwtService.userIdOf(claims))
+                    .expiresAt(expiresAt)
+                    .revokedAt(Instant.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            // 并发重复注销同一个 token，黑名单中已存在
+        }
+        addRevoked(jti, expiresAt.toEpochMilli());
+    }
+
+    /**
+     * 用户的 tokensValidAfter 已更新并保存后调用，使本实例立即生效（其它实例由定时刷新同步）
+     */
+    public void userTokensRevoked(User user) {
+        if (user.getTokensValidAfter() != null) {
+            userCutoffs.merge(user.getId(), user.getTokensValidAfter().getEpochSecond(), Math::max);
+        }
+    }
+
+    /**
+     * 增量同步其它实例写入的吊销记录
+     */
+    @Scheduled(initialDelayString = "${app.security.revocation.refresh-interval-ms:5000}",
+            fixedDelayString = "${app.security.revocation.refresh-interval-ms:5000}")
+    public void refresh() {
+        if (!enabled) {
+            return;
+        }
+        Instant syncStart = Instant.now();
+        Instant revokedAt = lastRevokedSync.minus(SYNC_OVERLAP);
+        long id = 0;
+        List<RevokedToken> batch;
+        do {
+            batch = revokedTokenRepository.findRevokedAfter(revokedAt, id, Limit.of(SYNC_BATCH));
+            for (RevokedToken token : batch) {
+                if (!revokedJtis.containsKey(token.getJti())) {
+                    addRevoked(token.getJti(), token.getExpiresAt().toEpochMilli());
+                }
+                revokedAt = token.getRevokedAt();
+                id = token.getId();
+            }
+        } while (batch.size() == SYNC_BATCH);
+        lastRevokedSync = syncStart;
+
+        for (Object[] row : userRepository.findTokenCutoffsSince(lastCutoffSync.minus(SYNC_OVERLAP))) {
+            userCutoffs.merge((Long) row[0], ((Instant) row[1]).getEpochSecond(), Math::max);
+        }
+        lastCutoffSync = syncStart;
+        lastRefreshAt = syncStart;
+    }
+
+    /**
+     * 清理已过期的吊销记录，并用剩余条目重建布隆过滤器（重建期间旧过滤器仍可用，完成后整体替换）
+     */
+    @Scheduled(initialDelayString = "${app.security.revocation.purge-interval-ms:3600000}",
+            fixedDelayString = "${app.security.revocation.purge-interval-ms:3600000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int deleted = revokedTokenRepository.deleteExpired(Instant.ofEpochMilli(now));
+        // 截止时间早于一个 token 有效期之前的用户，其受影响的 token 都已自然过期
+        userCutoffs.values().removeIf(cutoff -> cutoff * 1000 + jwtExpirationMs < now);
+
+        synchronized (writeLock) {
+            revokedJtis.values().removeIf(expiresAt -> expiresAt < now);
+            RevocationBloomFilter rebuilt = new RevocationBloomFilter(
+                    Math.max(expectedEntries, revokedJtis.size() * 2L), BLOOM_FALSE_POSITIVE_RATE);
+            revokedJtis.keySet().forEach(rebuilt::put);
+            bloom = rebuilt;
+        }
+        logger.info("清理过期的吊销 token {} 条，当前黑名单 {} 条", deleted, revokedJtis.size());
+    }
+
+    /**
+     * 吊销列表统计信息
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("revokedTokens", revokedJtis.size());
+        metrics.put("userCutoffs", userCutoffs.size());
+        metrics.put("bloomBits", bloom.bitCount());
+        metrics.put("bloomHashes", bloom.hashCount());
+        metrics.put("bloomHits", bloomHits.sum());
+        metrics.put("bloomFalsePositives", bloomFalsePositives.sum());
+        metrics.put("lastRevokedSync", lastRevokedSync);
+        metrics.put("lastRefreshAt", lastRefreshAt);
+        return metrics;
+    }
+
+    private void addRevoked(String jti, long expiresAtMs) {
+        synchronized (writeLock) {
+            revokedJtis.put(jti, expiresAtMs);
+            bloom.put(jti);
+        }
+    }
+}
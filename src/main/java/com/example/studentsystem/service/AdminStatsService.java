@@ -0,0 +1,367 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.event.StudentChangeEvent;
+import com.example.studentsystem.event.UserChangeEvent;
+import com.example.studentsystem.exception.ServiceBusyException;
+import com.example.studentsystem.model.Role;
+import com.example.studentsystem.repository.StudentRepository;
+import com.example.studentsystem.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 管理员首页统计（总用户数、管理员数、普通用户数、学生记录数），在内存中增量维护。
+ * - 读取统计不访问数据库：计数器在启动时从数据库加载，之后由 UserChangeEvent / StudentChangeEvent 增量更新，
+ *   监听方式与学号索引相同（@TransactionalEventListener(fallbackExecution = true)，事务提交后才计入，回滚不计入）。
+ * - 定时与数据库对账（app.admin.stats.reconcile-interval-ms，默认 5 分钟），纠正其它实例的写入、
+ *   不经过服务层的写入（如直接改库）等带来的偏差；对账期间若有增量到达则放弃本次结果，避免覆盖新数据。
+ * - 已提交但 AFTER_COMMIT 监听尚未执行的写入，数据库计数已包含而内存尚未计入，对账若此时修正，监听执行后会重复计数。
+ *   因此事件在事务内发布时（提交前）即登记为“进行中”，事务结束（AFTER_COMMIT 监听均已执行）后注销；
+ *   对账只在开始时没有进行中的写入、且查询期间版本未变时才修正，否则稍后重试。
+ * - SSE 推送：订阅时先发送一次 snapshot 事件，之后每 app.admin.stats.push-interval-ms（默认 1 秒）合并一次增量，
+ *   有变化时发送 delta 事件（只含变化的字段），空闲时定期发送注释行作为心跳，以便及时发现已断开的连接。
+ *   快照与增量在同一把锁内切分：快照等于上次推送时的值，之后的变化全部由下一个 delta 带给新订阅者，不会重复或遗漏。
+ */
+@Service
+public class AdminStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminStatsService.class);
+
+    // 对账时遇到并发增量的最大重试次数
+    private static final int RECONCILE_ATTEMPTS = 3;
+    // 重试前的等待，让进行中的事务完成
+    private static final long RECONCILE_RETRY_DELAY_MS = 200;
+
+    private final UserRepository userRepository;
+    private final StudentRepository studentRepository;
+    private final long streamTimeoutMs;
+    private final long heartbeatMs;
+    private final int maxSubscribers;
+
+    // 以下计数与订阅列表均由 this 保护；事件处理只做几次加法，锁竞争可以忽略
+    private long totalUsers;
+    private long adminUsers;
+    private long normalUsers;
+    private long totalStudents;
+    // 尚未推送的增量
+    private long pendingUsers;
+    private long pendingAdmins;
+    private long pendingNormals;
+    private long pendingStudents;
+    // 每次变更、事务登记与注销时递增，对账用来判断查询期间是否有增量到达或写入事务进出
+    private long version;
+    // 已发布事件、尚未结束的写入事务数
+    private long inFlight;
+    private final List<SseEmitter> subscribers = new ArrayList<>();
+
+    private volatile Instant lastReconciledAt;
+    private volatile long lastReconcileCorrection;
+    private volatile long lastPushAt = System.currentTimeMillis();
+    private long reconcileRuns;
+    private long reconcileSkipped;
+    private long pushedEvents;
+
+    public AdminStatsService(UserRepository userRepository,
+                             StudentRepository studentRepository,
+                             @Value("${app.admin.stats.stream-timeout-ms:1800000}") long streamTimeoutMs,
+                             @Value("${app.admin.stats.heartbeat-ms:15000}") long heartbeatMs,
+                             @Value("${app.admin.stats.max-subscribers:50}") int maxSubscribers) {
+        this.userRepository = userRepository;
+        this.studentRepository = studentRepository;
+        this.streamTimeoutMs = streamTimeoutMs;
+        this.heartbeatMs = heartbeatMs;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * 启动时从数据库加载计数
+     */
+    @PostConstruct
+    void load() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            logger.warn("加载管理员统计失败，将在下次定时对账时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前统计（只读内存）
+     */
+    public synchronized Map<String, Object> current() {
+        Map<String, Object> stats = snapshot(totalUsers, adminUsers, normalUsers, totalStudents);
+        stats.put("timestamp", LocalDateTime.now());
+        return stats;
+    }
+
+    /**
+     * 订阅统计推送，连接建立后立即收到 snapshot 事件
+     * @throws ServiceBusyException 订阅数已达上限
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        synchronized (this) {
+            if (subscribers.size() >= maxSubscribers) {
+                throw new ServiceBusyException("统计订阅连接过多，请稍后重试", 30);
+            }
+            // 快照取上次推送时的值，尚未推送的增量随下一个 delta 到达；
+            // 控制器返回前的 send 只写入 SseEmitter 的内部缓冲，不会阻塞
+            try {
+                emitter.send(SseEmitter.event().name("snapshot").data(snapshot(
+                        totalUsers - pendingUsers, adminUsers - pendingAdmins,
+                        normalUsers - pendingNormals, totalStudents - pendingStudents)));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            subscribers.add(emitter);
+        }
+        emitter.onCompletion(() -> unsubscribe(emitter));
+        emitter.onTimeout(() -> unsubscribe(emitter));
+        emitter.onError(e -> unsubscribe(emitter));
+        return emitter;
+    }
+
+    /**
+     * 事件在写入事务内发布时同步调用（早于提交）：登记进行中的写入，事务结束后注销。
+     * afterCompletion 在所有 afterCommit（含 AFTER_COMMIT 监听）之后执行，注销时增量已经计入。
+     */
+    @EventListener({UserChangeEvent.class, StudentChangeEvent.class})
+    public void onPublished() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        synchronized (this) {
+            inFlight++;
+            version++;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                synchronized (AdminStatsService.this) {
+                    inFlight--;
+                    version++;
+                }
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChange(UserChangeEvent event) {
+        long users = event.type() == UserChangeEvent.Type.CREATED ? 1 : 0;
+        long admins = roleDelta(event.previousRoles(), event.roles(), Role.ROLE_ADMIN);
+        long normals = roleDelta(event.previousRoles(), event.roles(), Role.ROLE_USER);
+        apply(users, admins, normals, 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChange(StudentChangeEvent event) {
+        switch (event.type()) {
+            case CREATED, BULK_CREATED -> apply(0, 0, 0, event.count());
+            case DELETED, BULK_DELETED -> apply(0, 0, 0, -event.count());
+            case UPDATED, BULK_UPDATED -> { }
+        }
+    }
+
+    /**
+     * 与数据库对账：开始时有进行中的写入事务、或查询期间有增量到达时重试，仍失败则留待下次
+     */
+    @Scheduled(initialDelayString = "${app.admin.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${app.admin.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+            if (attempt > 0 && !pause()) {
+                break;
+            }
+            long startVersion;
+            synchronized (this) {
+                if (inFlight > 0) {
+                    continue;
+                }
+                startVersion = version;
+            }
+            long users = userRepository.count();
+            long admins = 0;
+            long normals = 0;
+            for (Object[] row : userRepository.countUsersByRole()) {
+                if (row[0] == Role.ROLE_ADMIN) {
+                    admins = (Long) row[1];
+                } else if (row[0] == Role.ROLE_USER) {
+                    normals = (Long) row[1];
+                }
+            }
+            long students = studentRepository.count();
+            synchronized (this) {
+                if (version != startVersion) {
+                    continue;
+                }
+                long dUsers = users - totalUsers;
+                long dAdmins = admins - adminUsers;
+                long dNormals = normals - normalUsers;
+                long dStudents = students - totalStudents;
+                // 启动时的首次加载不算修正
+                boolean initial = lastReconciledAt == null;
+                reconcileRuns++;
+                lastReconciledAt = Instant.now();
+                lastReconcileCorrection = Math.abs(dUsers) + Math.abs(dAdmins) + Math.abs(dNormals) + Math.abs(dStudents);
+                if (lastReconcileCorrection != 0) {
+                    // 纠正值同样作为增量推送给订阅者
+                    apply(dUsers, dAdmins, dNormals, dStudents);
+                    if (!initial) {
+                        logger.info("管理员统计对账修正: 用户 {}, 管理员 {}, 普通用户 {}, 学生 {}",
+                                dUsers, dAdmins, dNormals, dStudents);
+                    }
+                }
+                return;
+            }
+        }
+        synchronized (this) {
+            reconcileSkipped++;
+        }
+    }
+
+    /**
+     * 合并增量并推送给订阅者；没有变化时按心跳间隔发送注释行
+     */
+    @Scheduled(fixedDelayString = "${app.admin.stats.push-interval-ms:1000}")
+    public void push() {
+        List<SseEmitter> targets;
+        Map<String, Object> delta = new LinkedHashMap<>();
+        synchronized (this) {
+            if (subscribers.isEmpty()) {
+                clearPending();
+                return;
+            }
+            putIfChanged(delta, "totalUsers", pendingUsers);
+            putIfChanged(delta, "adminUsers", pendingAdmins);
+            putIfChanged(delta, "normalUsers", pendingNormals);
+            putIfChanged(delta, "totalStudents", pendingStudents);
+            clearPending();
+            // 在锁内确定推送对象：此后订阅的连接，其快照已包含本次增量
+            targets = List.copyOf(subscribers);
+        }
+        long now = System.currentTimeMillis();
+        SseEmitter.SseEventBuilder event;
+        if (!delta.isEmpty()) {
+            event = SseEmitter.event().name("delta").data(delta);
+        } else if (now - lastPushAt >= heartbeatMs) {
+            event = SseEmitter.event().comment("ping");
+        } else {
+            return;
+        }
+        lastPushAt = now;
+        for (SseEmitter emitter : targets) {
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                unsubscribe(emitter);
+                emitter.completeWithError(e);
+            }
+        }
+        if (!delta.isEmpty()) {
+            synchronized (this) {
+                pushedEvents++;
+            }
+        }
+    }
+
+    /**
+     * 计数维护与推送统计
+     */
+    public synchronized Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("subscribers", subscribers.size());
+        metrics.put("maxSubscribers", maxSubscribers);
+        metrics.put("pushedEvents", pushedEvents);
+        metrics.put("reconcileRuns", reconcileRuns);
+        metrics.put("reconcileSkipped", reconcileSkipped);
+        metrics.put("inFlightWrites", inFlight);
+        metrics.put("lastReconciledAt", lastReconciledAt);
+        metrics.put("lastReconcileCorrection", lastReconcileCorrection);
+        return metrics;
+    }
+
+    /**
+     * 关闭时结束所有订阅连接
+     */
+    @PreDestroy
+    public void close() {
+        List<SseEmitter> targets;
+        synchronized (this) {
+            targets = List.copyOf(subscribers);
+            subscribers.clear();
+        }
+        targets.forEach(SseEmitter::complete);
+    }
+
+    private synchronized void apply(long users, long admins, long normals, long students) {
+        totalUsers += users;
+        adminUsers += admins;
+        normalUsers += normals;
+        totalStudents += students;
+        pendingUsers += users;
+        pendingAdmins += admins;
+        pendingNormals += normals;
+        pendingStudents += students;
+        version++;
+    }
+
+    private static boolean pause() {
+        try {
+            Thread.sleep(RECONCILE_RETRY_DELAY_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void unsubscribe(SseEmitter emitter) {
+        subscribers.remove(emitter);
+    }
+
+    private void clearPending() {
+        pendingUsers = 0;
+        pendingAdmins = 0;
+        pendingNormals = 0;
+        pendingStudents = 0;
+    }
+
+    private static Map<String, Object> snapshot(long users, long admins, long normals, long students) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalUsers", users);
+        stats.put("adminUsers", admins);
+        stats.put("normalUsers", normals);
+        stats.put("totalStudents", students);
+        return stats;
+    }
+
+    private static void putIfChanged(Map<String, Object> delta, String key, long value) {
+        if (value != 0) {
+            delta.put(key, value);
+        }
+    }
+
+    private static long roleDelta(Set<Role> before, Set<Role> after, Role role) {
+        return (after.contains(role) ? 1 : 0) - (before.contains(role) ? 1 : 0);
+    }
+}
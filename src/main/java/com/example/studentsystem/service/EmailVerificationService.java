@@ -1,57 +1,32 @@
 package com.example.studentsystem.service;
 
-import com.example.studentsystem.model.EmailVerificationCode;
-import com.example.studentsystem.repository.EmailVerificationCodeRepository;
+import com.example.studentsystem.mail.MailOutboxService;
 import com.example.studentsystem.repository.UserRepository;
+import com.example.studentsystem.verification.VerificationCodeStore;
+import com.example.studentsystem.verification.VerificationRateLimiter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
-import java.time.LocalDateTime;
-import java.util.Properties;
+import java.time.Duration;
 import java.util.Random;
 import java.util.regex.Pattern;
 
 /**
  * 邮箱验证服务
+ * 验证码邮件写入发件箱后立即返回，由 MailOutboxService 在后台发送（含重试与QQ/网易邮箱容错）。
+ * 验证码的保存与校验由 VerificationCodeStore 完成（数据库或内存，见 app.verification.store）。
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailVerificationService {
 
-    private final EmailVerificationCodeRepository codeRepository;
+    private final VerificationCodeStore codeStore;
     private final UserRepository userRepository;
-
-    // QQ邮箱配置 (主邮箱)
-    @Value("${spring.mail.qq.host}")
-    private String qqHost;
-    @Value("${spring.mail.qq.port}")
-    private int qqPort;
-    @Value("${spring.mail.qq.username}")
-    private String qqUsername;
-    @Value("${spring.mail.qq.password}")
-    private String qqPassword;
-
-    // 网易邮箱配置 (备用邮箱)
-    @Value("${spring.mail.netease.host}")
-    private String neteaseHost;
-    @Value("${spring.mail.netease.port}")
-    private int neteasePort;
-    @Value("${spring.mail.netease.username}")
-    private String neteaseUsername;
-    @Value("${spring.mail.netease.password}")
-    private String neteasePassword;
-
-    @Value("${mail.from.name:学生信息管理系统}")
-    private String fromName;
+    private final MailOutboxService mailOutboxService;
+    private final VerificationRateLimiter rateLimiter;
 
     // 验证码长度
     private static final int CODE_LENGTH = 6;
@@ -59,19 +34,16 @@ public class EmailVerificationService {
     private static final int CODE_VALIDITY_MINUTES = 5;
     // 最大尝试次数
     private static final int MAX_TRIES = 5;
-    // 发送间隔（秒）
-    private static final int SEND_INTERVAL_SECONDS = 60;
-    // 每日发送上限
-    private static final int DAILY_SEND_LIMIT = 10;
 
     // 邮箱格式验证 (通用邮箱格式)
     private static final Pattern EMAIL_PATTERN = Pattern.compile("^[a-zA-Z0-9_.-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,}$");
 
     /**
      * 发送注册验证码
+     * @param clientIp 请求方 IP，用于按 IP 限流
      */
     @Transactional
-    public void sendRegisterCode(String email) throws Exception {
+    public void sendRegisterCode(String email, String clientIp) throws Exception {
         // 1. 预处理邮箱（去除前后空格，转小写）
         email = email.trim().toLowerCase();
 
@@ -85,26 +57,27 @@ public class EmailVerificationService {
             throw new IllegalArgumentException("该邮箱已注册");
         }
 
-        // 4. 检查发送频率限制
-        checkSendFrequency(email, "register");
+        // 4. 检查并记录发送频率（内存限流）
+        rateLimiter.acquire(email, "register", clientIp);
 
         // 5. 生成验证码
         String code = generateCode();
 
-        // 6. 保存验证码到数据库
-        saveVerificationCode(email, code, "register");
+        // 6. 保存验证码
+        codeStore.save(email, "register", code, Duration.ofMinutes(CODE_VALIDITY_MINUTES));
 
-        // 7. 发送邮件 (两种邮箱都可以)
-        sendEmailWithFallback(email, code, "邮箱验证");
+        // 7. 写入发件箱，事务提交后由后台发送
+        enqueueEmail(email, code, "邮箱验证");
 
-        log.info("验证码已发送到邮箱: {}", email);
+        log.info("验证码邮件已加入发送队列: {}", email);
     }
 
     /**
      * 发送重置密码验证码
+     * @param clientIp 请求方 IP，用于按 IP 限流
      */
     @Transactional
-    public void sendResetPasswordCode(String email) throws Exception {
+    public void sendResetPasswordCode(String email, String clientIp) throws Exception {
         // 1. 预处理邮箱
         email = email.trim().toLowerCase();
 
@@ -118,66 +91,41 @@ public class EmailVerificationService {
             throw new IllegalArgumentException("该邮箱未注册");
         }
 
-        // 4. 检查发送频率限制
-        checkSendFrequency(email, "reset_password");
+        // 4. 检查并记录发送频率（内存限流）
+        rateLimiter.acquire(email, "reset_password", clientIp);
 
         // 5. 生成验证码
         String code = generateCode();
 
-        // 6. 保存验证码到数据库
-        saveVerificationCode(email, code, "reset_password");
+        // 6. 保存验证码
+        codeStore.save(email, "reset_password", code, Duration.ofMinutes(CODE_VALIDITY_MINUTES));
 
-        // 7. 发送邮件 (使用容错机制)
-        sendEmailWithFallback(email, code, "重置密码");
+        // 7. 写入发件箱，事务提交后由后台发送
+        enqueueEmail(email, code, "重置密码");
 
-        log.info("重置密码验证码已发送到邮箱: {}", email);
+        log.info("重置密码验证码邮件已加入发送队列: {}", email);
     }
 
     /**
      * 校验验证码
+     * 校验失败时抛出 IllegalArgumentException，但不回滚事务，错误次数与失效状态需要保存下来
      */
-    @Transactional
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
     public void verifyCode(String email, String code, String scene) throws Exception {
         // 预处理
         email = email.trim().toLowerCase();
         code = code.trim();
 
-        // 查找验证码记录
-        EmailVerificationCode record = codeRepository
-                .findFirstByEmailAndSceneOrderByCreatedTimeDesc(email, scene)
-                .orElseThrow(() -> new IllegalArgumentException("验证码不存在或已过期"));
-
-        // 检查状态
-        if (record.getStatus() == 2) {
-            throw new IllegalArgumentException("验证码已失效");
-        }
-
-        // 检查是否过期
-        if (record.isExpired()) {
-            record.setStatus(2);
-            codeRepository.save(record);
-            throw new IllegalArgumentException("验证码已过期，请重新获取");
-        }
-
-        // 检查尝试次数
-        if (record.isMaxTriesReached(MAX_TRIES)) {
-            record.setStatus(2);
-            codeRepository.save(record);
-            throw new IllegalArgumentException("错误次数过多，请重新获取验证码");
-        }
-
-        // 验证码比对
-        if (!code.equals(record.getCode())) {
-            record.incrementTryCount();
-            codeRepository.save(record);
-            throw new IllegalArgumentException("验证码错误，还可尝试 " + (MAX_TRIES - record.getTryCount()) + " 次");
+        VerificationCodeStore.Verification verification = codeStore.verify(email, scene, code, MAX_TRIES);
+        switch (verification.result()) {
+            case NOT_FOUND -> throw new IllegalArgumentException("验证码不存在或已过期");
+            case INVALIDATED -> throw new IllegalArgumentException("验证码已失效");
+            case EXPIRED -> throw new IllegalArgumentException("验证码已过期，请重新获取");
+            case TOO_MANY_TRIES -> throw new IllegalArgumentException("错误次数过多，请重新获取验证码");
+            case MISMATCH -> throw new IllegalArgumentException(
+                    "验证码错误，还可尝试 " + verification.remainingTries() + " 次");
+            case OK -> log.info("邮箱 {} 验证码校验成功", email);
         }
-
-        // 验证通过，更新状态
-        record.setStatus(1);
-        codeRepository.save(record);
-
-        log.info("邮箱 {} 验证码校验成功", email);
     }
 
     /**
@@ -187,25 +135,6 @@ public class EmailVerificationService {
         return EMAIL_PATTERN.matcher(email).matches();
     }
 
-    /**
-     * 检查发送频率
-     */
-    private void checkSendFrequency(String email, String scene) {
-        // 检查60秒内是否已发送
-        LocalDateTime oneMinuteAgo = LocalDateTime.now().minusSeconds(SEND_INTERVAL_SECONDS);
-        long recentCount = codeRepository.countByEmailAndSceneAndCreatedTimeAfter(email, scene, oneMinuteAgo);
-        if (recentCount > 0) {
-            throw new IllegalArgumentException("操作过于频繁，请 " + SEND_INTERVAL_SECONDS + " 秒后再试");
-        }
-
-        // 检查今日发送次数
-        LocalDateTime todayStart = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        long todayCount = codeRepository.countByEmailAndSceneAndCreatedTimeAfter(email, scene, todayStart);
-        if (todayCount >= DAILY_SEND_LIMIT) {
-            throw new IllegalArgumentException("今日发送次数已达上限");
-        }
-    }
-
     /**
      * 生成6位数字验证码
      */
@@ -219,96 +148,11 @@ public class EmailVerificationService {
     }
 
     /**
-     * 保存验证码到数据库
+     * 将验证码邮件写入发件箱（与验证码在同一事务中提交），有效期与验证码一致
      */
-    private void saveVerificationCode(String email, String code, String scene) {
-        // 查找该邮箱在该场景下的旧记录，如果存在则作废
-        codeRepository.findFirstByEmailAndSceneOrderByCreatedTimeDesc(email, scene)
-                .ifPresent(oldRecord -> {
-                    oldRecord.setStatus(2); // 设为失效
-                    codeRepository.save(oldRecord);
-                });
-
-        // 创建新记录
-        EmailVerificationCode newRecord = EmailVerificationCode.builder()
-                .email(email)
-                .code(code)
-                .scene(scene)
-                .expireTime(LocalDateTime.now().plusMinutes(CODE_VALIDITY_MINUTES))
-                .tryCount(0)
-                .status(0)
-                .build();
-
-        codeRepository.save(newRecord);
-    }
-
-    /**
-     * 创建JavaMailSender实例
-     */
-    private JavaMailSender createMailSender(String host, int port, String username, String password) {
-        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
-        mailSender.setHost(host);
-        mailSender.setPort(port);
-        mailSender.setUsername(username);
-        mailSender.setPassword(password);
-
-        Properties props = mailSender.getJavaMailProperties();
-        props.put("mail.transport.protocol", "smtp");
-        props.put("mail.smtp.auth", "true");
-        props.put("mail.smtp.ssl.enable", "true");
-        props.put("mail.smtp.ssl.trust", host);
-        props.put("mail.smtp.timeout", "10000");
-        props.put("mail.smtp.connectiontimeout", "10000");
-        props.put("mail.smtp.writetimeout", "10000");
-
-        return mailSender;
-    }
-
-    /**
-     * 使用指定邮箱发送邮件
-     */
-    private void sendEmail(JavaMailSender mailSender, String fromEmail, String toEmail, String code, String scene) throws MessagingException {
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-
-        helper.setFrom(fromName + " <" + fromEmail + ">");
-        helper.setTo(toEmail);
-        helper.setSubject("【学生信息管理系统】" + scene + "验证码");
-
-        String content = buildEmailContent(code, scene);
-        helper.setText(content, true);
-
-        mailSender.send(message);
-        log.info("邮件发送成功: {} -> {}", fromEmail, toEmail);
-    }
-
-    /**
-     * 带容错机制的邮件发送
-     * 优先使用QQ邮箱发送，失败则使用网易邮箱，都失败则抛出异常
-     */
-    private void sendEmailWithFallback(String toEmail, String code, String scene) throws Exception {
-        // 1. 优先使用QQ邮箱发送
-        try {
-            JavaMailSender qqMailSender = createMailSender(qqHost, qqPort, qqUsername, qqPassword);
-            sendEmail(qqMailSender, qqUsername, toEmail, code, scene);
-            log.info("使用QQ邮箱发送成功: {}", toEmail);
-            return;
-        } catch (Exception e) {
-            log.warn("QQ邮箱发送失败，尝试使用网易邮箱: {}", e.getMessage());
-        }
-
-        // 2. QQ邮箱失败，尝试网易邮箱
-        try {
-            JavaMailSender neteaseMailSender = createMailSender(neteaseHost, neteasePort, neteaseUsername, neteasePassword);
-            sendEmail(neteaseMailSender, neteaseUsername, toEmail, code, scene);
-            log.info("使用网易邮箱发送成功: {}", toEmail);
-            return;
-        } catch (Exception e) {
-            log.error("网易邮箱发送也失败: {}", e.getMessage());
-        }
-
-        // 3. 两个邮箱都失败，抛出异常
-        throw new Exception("邮件发送失败，请稍后再试");
+    private void enqueueEmail(String toEmail, String code, String scene) {
+        mailOutboxService.enqueue(toEmail, "【学生信息管理系统】" + scene + "验证码",
+                buildEmailContent(code, scene), Duration.ofMinutes(CODE_VALIDITY_MINUTES));
     }
 
     /**
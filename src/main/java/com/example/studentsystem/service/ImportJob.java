@@ -0,0 +1,127 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.dto.BulkCreateResult;
+import com.example.studentsystem.dto.ImportJobStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个异步导入任务的运行状态。
+ * 计数器由导入线程更新、由轮询请求读取，均使用原子类型；失败行明细只保留前 MAX_FAILED_ROWS 条。
+ */
+class ImportJob implements StudentImportService.ImportListener {
+
+    enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    static final int MAX_FAILED_ROWS = 200;
+
+    private final String id = UUID.randomUUID().toString();
+    private final Long userId;
+    private final String fileName;
+    private final Instant createdAt = Instant.now();
+
+    private final AtomicInteger parsed = new AtomicInteger();
+    private final AtomicInteger inserted = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final List<ImportJobStatus.FailedRow> failedRows = new ArrayList<>();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile String error;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+
+    ImportJob(Long userId, String fileName) {
+        this.userId = userId;
+        this.fileName = fileName;
+    }
+
+    String getId() { return id; }
+
+    Long getUserId() { return userId; }
+
+    Status getStatus() { return status; }
+
+    Instant getFinishedAt() { return finishedAt; }
+
+    boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    /**
+     * 由导入线程调用，任务在排队期间已被取消时返回 false。
+     */
+    synchronized boolean start() {
+        if (cancelRequested) return false;
+        status = Status.RUNNING;
+        startedAt = Instant.now();
+        return true;
+    }
+
+    synchronized void markFinished(Status finalStatus, String error) {
+        if (isFinished()) return;
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = finalStatus;
+    }
+
+    /**
+     * 请求取消：排队中的任务立即标记为已取消（出队后不再执行），运行中的任务在解析下一行前中止。
+     */
+    synchronized void cancel() {
+        if (isFinished()) return;
+        cancelRequested = true;
+        if (status == Status.QUEUED) {
+            markFinished(Status.CANCELLED, null);
+        }
+    }
+
+    @Override
+    public boolean cancelled() {
+        return cancelRequested;
+    }
+
+    @Override
+    public void rowParsed(int rowNumber) {
+        parsed.incrementAndGet();
+    }
+
+    @Override
+    public void rowSkipped(int rowNumber) {
+        skipped.incrementAndGet();
+    }
+
+    @Override
+    public void duplicateSkipped(int rowNumber) {
+        skipped.incrementAndGet();
+    }
+
+    @Override
+    public void chunkWritten(BulkCreateResult.ChunkTiming timing, int written) {
+        inserted.addAndGet(written);
+    }
+
+    @Override
+    public void rowFailed(int rowNumber, String reason) {
+        failed.incrementAndGet();
+        synchronized (failedRows) {
+            if (failedRows.size() < MAX_FAILED_ROWS) {
+                failedRows.add(new ImportJobStatus.FailedRow(rowNumber, reason));
+            }
+        }
+    }
+
+    ImportJobStatus snapshot() {
+        List<ImportJobStatus.FailedRow> rows;
+        synchronized (failedRows) {
+            rows = List.copyOf(failedRows);
+        }
+        return new ImportJobStatus(id, fileName, status.name(), parsed.get(), inserted.get(), skipped.get(),
+                failed.get(), rows, error, createdAt, startedAt, finishedAt);
+    }
+}
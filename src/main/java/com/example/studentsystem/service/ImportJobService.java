@@ -0,0 +1,148 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.dto.ImportJobStatus;
+import com.example.studentsystem.model.User;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步导入任务管理。
+ * - 上传文件在请求线程内落盘后立即返回任务 ID，解析与写入在有界线程池中执行，与客户端连接无关。
+ * - 线程数与排队容量可配置（app.import.jobs.threads / app.import.jobs.queue-capacity），
+ *   队列已满时抛出 RejectedExecutionException，由控制器转换为 503。
+ * - 任务状态保存在内存中（单实例），结束超过 app.import.jobs.retention-minutes 后在下次提交时清理。
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+    private final StudentImportService importService;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    public ImportJobService(StudentImportService importService,
+                            @Value("${app.import.jobs.threads:2}") int threads,
+                            @Value("${app.import.jobs.queue-capacity:20}") int queueCapacity,
+                            @Value("${app.import.jobs.retention-minutes:60}") long retentionMinutes) {
+        this.importService = importService;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "student-import-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * 提交导入任务：先把上传内容复制到临时文件（请求结束后 multipart 临时文件会被容器删除），再入队执行。
+     * @throws RejectedExecutionException 排队任务已满
+     */
+    public ImportJobStatus submit(MultipartFile file, User user) throws IOException {
+        purgeExpired();
+        File tmp = File.createTempFile("student-import-job-", ".xlsx");
+        try {
+            file.transferTo(tmp);
+        } catch (IOException e) {
+            deleteQuietly(tmp);
+            throw e;
+        }
+        ImportJob job = new ImportJob(user.getId(), file.getOriginalFilename());
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, tmp, user));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(tmp);
+            throw e;
+        }
+        return job.snapshot();
+    }
+
+    // 查询任务进度（仅限任务所属用户）
+    public Optional<ImportJobStatus> get(String jobId, User user) {
+        return find(jobId, user).map(ImportJob::snapshot);
+    }
+
+    // 列出当前用户的任务，按创建时间倒序
+    public List<ImportJobStatus> list(User user) {
+        return jobs.values().stream()
+                .filter(job -> job.getUserId().equals(user.getId()))
+                .map(ImportJob::snapshot)
+                .sorted(Comparator.comparing(ImportJobStatus::createdAt).reversed())
+                .toList();
+    }
+
+    // 取消任务，已提交的批次不会回滚
+    public Optional<ImportJobStatus> cancel(String jobId, User user) {
+        return find(jobId, user).map(job -> {
+            job.cancel();
+            return job.snapshot();
+        });
+    }
+
+    private Optional<ImportJob> find(String jobId, User user) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null || !job.getUserId().equals(user.getId())) return Optional.empty();
+        return Optional.of(job);
+    }
+
+    private void run(ImportJob job, File tmp, User user) {
+        try {
+            if (!job.start()) return;
+            importService.importFile(tmp, user, job);
+            job.markFinished(ImportJob.Status.COMPLETED, null);
+        } catch (CancellationException e) {
+            job.markFinished(ImportJob.Status.CANCELLED, null);
+        } catch (Exception e) {
+            logger.warn("导入任务 {} 执行失败: {}", job.getId(), e.getMessage());
+            job.markFinished(ImportJob.Status.FAILED, e.getMessage());
+        } finally {
+            deleteQuietly(tmp);
+        }
+    }
+
+    private void purgeExpired() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished()
+                && job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private static void deleteQuietly(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException e) {
+            logger.debug("删除临时文件失败: {}", file, e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
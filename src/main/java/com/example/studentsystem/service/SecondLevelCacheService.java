@@ -0,0 +1,91 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.config.SecondLevelCacheConfig;
+import com.example.studentsystem.event.StudentChangeEvent;
+import com.example.studentsystem.model.Student;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate 二级缓存的统计与失效维护（缓存配置见 SecondLevelCacheConfig）。
+ * - metrics() 汇总 Hibernate 统计中各区域的命中、未命中、写入次数与命中率，以及 Caffeine 中的实际条目数；
+ *   未开启二级缓存时只返回 enabled=false。
+ * - 按学号覆盖写入（bulkUpsert）的更新直接走 JDBC，Hibernate 不知道这些行已变化，
+ *   收到 BULK_UPDATED 事件（事务提交后）时逐个驱逐对应的 Student 缓存条目。
+ *   JPQL 批量 UPDATE / DELETE 由 Hibernate 自动清空整个 Student 区域，无需处理。
+ */
+@Service
+public class SecondLevelCacheService {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final CacheManager cacheManager;
+
+    public SecondLevelCacheService(EntityManagerFactory entityManagerFactory,
+                                   ObjectProvider<CacheManager> hibernateCacheManager) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cacheManager = hibernateCacheManager.getIfAvailable();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChange(StudentChangeEvent event) {
+        if (cacheManager == null || event.type() != StudentChangeEvent.Type.BULK_UPDATED) return;
+        jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+        event.studentIds().forEach(id -> cache.evict(Student.class, id));
+    }
+
+    /**
+     * 各缓存区域及查询缓存的命中统计（自启动或上次清零以来）
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", cacheManager != null);
+        if (cacheManager == null) {
+            return metrics;
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        metrics.put("since", statistics.getStart());
+        metrics.put("secondLevel", counts(statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        metrics.put("queryCache", counts(statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (SecondLevelCacheConfig.Region region : SecondLevelCacheConfig.REGIONS) {
+            CacheRegionStatistics stats = region.query()
+                    ? statistics.getQueryRegionStatistics(region.name())
+                    : statistics.getDomainDataRegionStatistics(region.name());
+            Map<String, Object> entry = stats == null
+                    ? counts(0, 0, 0)
+                    : counts(stats.getHitCount(), stats.getMissCount(), stats.getPutCount());
+            entry.put("size", size(region.name()));
+            regions.put(region.name(), entry);
+        }
+        metrics.put("regions", regions);
+        metrics.put("timestampsRegionSize", size(SecondLevelCacheConfig.TIMESTAMPS_REGION));
+        return metrics;
+    }
+
+    private static Map<String, Object> counts(long hits, long misses, long puts) {
+        Map<String, Object> counts = new LinkedHashMap<>();
+        counts.put("hits", hits);
+        counts.put("misses", misses);
+        counts.put("puts", puts);
+        counts.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return counts;
+    }
+
+    // Caffeine 中的估计条目数（Hibernate 的 JCache 区域不提供条目数统计）
+    private long size(String region) {
+        Cache<Object, Object> cache = cacheManager.getCache(region);
+        return cache == null ? 0 : cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.dto.BulkCreateResult;
+import com.example.studentsystem.dto.StudentRequestDto;
+import com.example.studentsystem.event.StudentChangeEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 学生批量写入器，由 StudentService.bulkInserter 创建，供导入等批量场景逐条投递。
+ * - 学号去重在内存中完成：构造时传入该用户已有的学号集合，同一文件内的重复学号同样被跳过。
+ * - 缓冲满 batchSize 条即通过 JdbcTemplate.batchUpdate 写入并单独提交（分块提交），
+ *   绕开 IDENTITY 主键导致 Hibernate 无法批量插入的问题。
+ * - 某一批次写入失败时回滚该批次，再逐行单独写入，失败的行通过 Listener 报告行号与原因，其余行不受影响；
+ *   失败行的学号从去重集合中移除，之后出现的同学号行仍会尝试写入，而不是被误报为重复。
+ * - 每个批次在自身事务内发布 BULK_CREATED 类型的 StudentChangeEvent，携带该批次写入成功的学号，
+ *   监听方在该批次提交后处理（逐行重试时每行各自发布）。
+ * - MySQL 需在连接串上开启 rewriteBatchedStatements=true，驱动才会把批次合并为多值 INSERT。
+ * 非线程安全，一个实例只应在单个导入流程中使用。
+ */
+public class StudentBulkInserter {
+
+    /**
+     * 写入进度回调（均在调用 add/finish 的线程中触发）。
+     */
+    public interface Listener {
+        // 一个批次提交完成，inserted 为该批次实际写入的条数
+        default void chunkWritten(BulkCreateResult.ChunkTiming timing, int inserted) {}
+        // 学号重复被跳过
+        default void duplicateSkipped(int rowNumber) {}
+        // 某一行写入失败
+        default void rowFailed(int rowNumber, String reason) {}
+    }
+
+    private static final Listener NO_OP = new Listener() {};
+
+    static final String INSERT_SQL = "INSERT INTO students "
+            + "(student_no, user_id, name, gender, dob, phone, address, class_name) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final Long userId;
+    private final Set<String> knownStudentNos;
+    private final int batchSize;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final List<Pending> buffer;
+    private final List<BulkCreateResult.ChunkTiming> chunks = new ArrayList<>();
+    private Listener listener = NO_OP;
+    private int inserted;
+    private int duplicates;
+    private int failed;
+
+    StudentBulkInserter(Long userId, Set<String> knownStudentNos, int batchSize,
+                        JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                        ApplicationEventPublisher eventPublisher) {
+        this.userId = userId;
+        this.knownStudentNos = knownStudentNos;
+        this.batchSize = batchSize;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.buffer = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * 设置进度回调，需在第一次 add 之前调用。
+     */
+    public StudentBulkInserter listener(Listener listener) {
+        this.listener = listener != null ? listener : NO_OP;
+        return this;
+    }
+
+    /**
+     * 投递一条待创建的学生；学号重复时直接跳过并计数。
+     */
+    public void add(StudentRequestDto dto) {
+        add(0, dto);
+    }
+
+    /**
+     * 投递一条待创建的学生，rowNumber 为来源行号（用于失败报告）。
+     */
+    public void add(int rowNumber, StudentRequestDto dto) {
+        if (!knownStudentNos.add(dto.getStudentNo())) {
+            duplicates++;
+            listener.duplicateSkipped(rowNumber);
+            return;
+        }
+        buffer.add(new Pending(rowNumber, dto));
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * 写入剩余缓冲并返回汇总结果。
+     */
+    public BulkCreateResult finish() {
+        flush();
+        return new BulkCreateResult(inserted, duplicates, failed, List.copyOf(chunks));
+    }
+
+    private void flush() {
+        if (buffer.isEmpty()) return;
+        long start = System.nanoTime();
+        List<String> written;
+        try {
+            List<String> studentNos = buffer.stream().map(p -> p.dto().getStudentNo()).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_SQL, buffer, buffer.size(), (ps, p) -> bind(ps, userId, p.dto()));
+                eventPublisher.publishEvent(StudentChangeEvent.bulkCreated(userId, studentNos));
+            });
+            written = studentNos;
+        } catch (DataAccessException batchFailure) {
+            // 批次整体回滚后逐行重试，定位具体失败的行
+            written = insertOneByOne();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        inserted += written.size();
+        BulkCreateResult.ChunkTiming timing = new BulkCreateResult.ChunkTiming(chunks.size() + 1, buffer.size(), millis);
+        chunks.add(timing);
+        buffer.clear();
+        listener.chunkWritten(timing, written.size());
+    }
+
+    // 逐行写入，返回写入成功的学号
+    private List<String> insertOneByOne() {
+        List<String> written = new ArrayList<>();
+        for (Pending p : buffer) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(INSERT_SQL, ps -> bind(ps, userId, p.dto()));
+                    eventPublisher.publishEvent(StudentChangeEvent.bulkCreated(userId, List.of(p.dto().getStudentNo())));
+                });
+                written.add(p.dto().getStudentNo());
+            } catch (DataAccessException e) {
+                knownStudentNos.remove(p.dto().getStudentNo());
+                failed++;
+                listener.rowFailed(p.rowNumber(), e.getMostSpecificCause().getMessage());
+            }
+        }
+        return written;
+    }
+
+    // 绑定 INSERT_SQL 的参数，批量覆盖写入（StudentServiceImpl.bulkUpsert）同样使用
+    static void bind(PreparedStatement ps, Long userId, StudentRequestDto dto) throws SQLException {
+        ps.setString(1, dto.getStudentNo());
+        ps.setLong(2, userId);
+        ps.setString(3, dto.getName());
+        ps.setString(4, dto.getGender());
+        if (dto.getDob() != null) {
+            ps.setDate(5, Date.valueOf(dto.getDob()));
+        } else {
+            ps.setNull(5, Types.DATE);
+        }
+        ps.setString(6, dto.getPhone());
+        ps.setString(7, dto.getAddress());
+        ps.setString(8, dto.getClassName());
+    }
+
+    private record Pending(int rowNumber, StudentRequestDto dto) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.studentsystem.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 学生列表游标：记录上一页最后一行的排序键与主键，编码为 URL 安全的 Base64 字符串，对客户端不透明。
+ * 编码内容为 "排序字段:方向:id:排序值"，排序字段与方向一并写入，防止游标被用于不同的排序方式。
+ */
+final class StudentCursor {
+
+    // 允许作为游标排序键的字段：都可与 id 组成唯一且非空的排序键
+    static final String ID = "id";
+    static final String STUDENT_NO = "studentNo";
+
+    final String sortKey;
+    final boolean descending;
+    final long id;
+    final String value; // 排序值（按 id 排序时为 null）
+
+    private StudentCursor(String sortKey, boolean descending, long id, String value) {
+        this.sortKey = sortKey;
+        this.descending = descending;
+        this.id = id;
+        this.value = value;
+    }
+
+    static String encode(String sortKey, boolean descending, long id, String value) {
+        String raw = sortKey + ":" + (descending ? "desc" : "asc") + ":" + id + (value != null ? ":" + value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标并校验与当前排序方式一致，格式不正确时抛出 IllegalArgumentException
+     */
+    static StudentCursor decode(String cursor, String sortKey, boolean descending) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+        String[] parts = raw.split(":", 4);
+        boolean needsValue = !ID.equals(sortKey);
+        if (parts.length != (needsValue ? 4 : 3)
+                || !parts[0].equals(sortKey)
+                || !parts[1].equals(descending ? "desc" : "asc")) {
+            throw new IllegalArgumentException("游标与当前排序方式不匹配");
+        }
+        try {
+            return new StudentCursor(sortKey, descending, Long.parseLong(parts[2]), needsValue ? parts[3] : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的游标");
+        }
+    }
+
+    // 转为 Spring Data keyset 滚动位置所需的键值
+    Map<String, Object> keys() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (value != null) {
+            keys.put(sortKey, value);
+        }
+        keys.put(ID, id);
+        return keys;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.excel.StreamingXlsxWriter;
+import com.example.studentsystem.mapper.StudentMapper;
+import com.example.studentsystem.model.User;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 导出当前用户的学生数据（XLSX / CSV），边查询边写出到输出流：
+ * - 数据通过 StudentService.forEachStudent 按主键分段读取，不构建完整列表；
+ * - XLSX 由 StreamingXlsxWriter 直接生成，CSV 逐行写出；
+ * - 表头写出后立即 flush，客户端在首段查询返回前即可收到响应头与首批字节。
+ * 列顺序与导入模板一致（StudentMapper.EXCEL_HEADERS），导出文件可直接再次导入。
+ */
+@Service
+public class StudentExportService {
+
+    private final StudentService studentService;
+
+    public StudentExportService(StudentService studentService) {
+        this.studentService = studentService;
+    }
+
+    /**
+     * 导出为 .xlsx
+     */
+    public void exportXlsx(User user, OutputStream out) throws IOException {
+        StreamingXlsxWriter writer = new StreamingXlsxWriter(out, "Students");
+        writer.writeRow(StudentMapper.EXCEL_HEADERS);
+        out.flush();
+        try {
+            studentService.forEachStudent(user, dto -> {
+                try {
+                    writer.writeRow(StudentMapper.toExcelRow(dto));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.close();
+    }
+
+    /**
+     * 导出为 UTF-8 CSV（带 BOM，便于 Excel 正确识别中文）
+     */
+    public void exportCsv(User user, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write('\uFEFF');
+        writeCsvRow(writer, StudentMapper.EXCEL_HEADERS);
+        writer.flush();
+        try {
+            studentService.forEachStudent(user, dto -> {
+                try {
+                    writeCsvRow(writer, StudentMapper.toExcelRow(dto));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvRow(Writer writer, String[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(csvValue(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    // 含逗号、引号或换行的值加引号转义；以 = + - @ 开头的值加单引号前缀，防止在 Excel 中被当作公式执行
+    private static String csvValue(String value) {
+        if (value == null || value.isEmpty()) return "";
+        char first = value.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
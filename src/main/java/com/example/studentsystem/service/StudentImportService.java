@@ -0,0 +1,159 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.dto.BulkCreateResult;
+import com.example.studentsystem.dto.StudentImportResult;
+import com.example.studentsystem.dto.StudentRequestDto;
+import com.example.studentsystem.excel.StudentExcelStreamReader;
+import com.example.studentsystem.mapper.StudentMapper;
+import com.example.studentsystem.model.User;
+import org.apache.poi.ss.usermodel.*;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Excel 批量导入学生。
+ * - DOM 模式：WorkbookFactory 整体加载工作簿（兼容 .xls/.xlsx，内存随文件大小增长）。
+ * - 流式模式：StudentExcelStreamReader 基于 SAX 逐行读取 .xlsx，内存占用恒定，并统计吞吐与堆峰值。
+ * 两种模式共用 StudentMapper.fromExcelRow 完成行到 StudentRequestDto 的映射，
+ * 并通过 StudentBulkInserter 去重后分批写入数据库。
+ */
+@Service
+public class StudentImportService {
+
+    // 模板列数：姓名、学号、性别、出生日期、班级、监护人手机号、地址
+    static final int COLUMN_COUNT = StudentMapper.EXCEL_HEADERS.length;
+
+    /**
+     * 流式导入的进度回调，行号为 Excel 中的显示行号（表头为第 1 行）。
+     * cancelled() 在每行解析前检查，返回 true 时中止解析并抛出 CancellationException（已提交的批次保留）。
+     */
+    public interface ImportListener extends StudentBulkInserter.Listener {
+        default void rowParsed(int rowNumber) {}
+        default void rowSkipped(int rowNumber) {}
+        default boolean cancelled() { return false; }
+    }
+
+    private final StudentService studentService;
+
+    public StudentImportService(StudentService studentService) {
+        this.studentService = studentService;
+    }
+
+    /**
+     * DOM 模式导入，返回批量写入结果。
+     */
+    public BulkCreateResult importWorkbook(InputStream in, User user) throws Exception {
+        try (Workbook workbook = WorkbookFactory.create(in)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            StudentBulkInserter inserter = studentService.bulkInserter(user);
+            for (int i = 1; i <= sheet.getLastRowNum(); i++) {// 从第2行开始，跳过表头
+                Row row = sheet.getRow(i);
+                if (row == null) continue;
+                String[] cells = new String[COLUMN_COUNT];
+                for (int c = 0; c < COLUMN_COUNT; c++) {
+                    cells[c] = getStringCell(row.getCell(c));
+                }
+                StudentRequestDto dto = StudentMapper.fromExcelRow(cells);
+                if (dto == null) continue; // 学号必填
+                inserter.add(i + 1, dto);
+            }
+            return inserter.finish();
+        }
+    }
+
+    /**
+     * 流式模式导入：上传内容先落盘为临时文件，再以只读方式逐行解析，避免整包进入堆内存。
+     */
+    public StudentImportResult importStreaming(MultipartFile file, User user) throws Exception {
+        File tmp = File.createTempFile("student-import-", ".xlsx");
+        List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        int[] counters = new int[2]; // 0: 读取行数 1: 跳过
+        BulkCreateResult written;
+        try {
+            file.transferTo(tmp);
+            written = importFile(tmp, user, new ImportListener() {
+                @Override
+                public void rowParsed(int rowNumber) {
+                    counters[0]++;
+                }
+
+                @Override
+                public void rowSkipped(int rowNumber) {
+                    counters[1]++;
+                }
+            });
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+
+        StudentImportResult result = new StudentImportResult();
+        result.setMode("stream");
+        result.setRowsRead(counters[0]);
+        result.setImported(written.inserted());
+        result.setSkipped(counters[1]);
+        result.setDuplicates(written.duplicates());
+        result.setFailed(written.failed());
+        result.setChunks(written.chunks());
+        result.setElapsedMs(elapsedMs);
+        result.setRowsPerSecond(counters[0] * 1000.0 / elapsedMs);
+        result.setPeakHeapBytes(heapPools.stream().mapToLong(p -> p.getPeakUsage().getUsed()).sum());
+        result.setMessage("成功导入 " + written.inserted() + " 条学生记录");
+        return result;
+    }
+
+    /**
+     * 逐行解析 .xlsx 文件并批量写入，供同步流式导入与异步导入任务共用。
+     */
+    public BulkCreateResult importFile(File xlsx, User user, ImportListener listener) throws Exception {
+        StudentBulkInserter inserter = studentService.bulkInserter(user).listener(listener);
+        StudentExcelStreamReader.read(xlsx, COLUMN_COUNT, (rowNumber, cells) -> {
+            if (rowNumber == 0) return; // 跳过表头
+            if (listener.cancelled()) {
+                throw new CancellationException("导入已取消");
+            }
+            int displayRow = rowNumber + 1;
+            listener.rowParsed(displayRow);
+            StudentRequestDto dto = StudentMapper.fromExcelRow(cells);
+            if (dto == null) {
+                listener.rowSkipped(displayRow);
+                return;
+            }
+            inserter.add(displayRow, dto);
+        });
+        return inserter.finish();
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(p -> p.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    // 辅助方法:获取单元格字符串值,处理不同类型的单元格
+    private static String getStringCell(Cell cell) {
+        if (cell == null) return null;
+        if (cell.getCellType() == CellType.STRING) return cell.getStringCellValue().trim();
+        if (cell.getCellType() == CellType.NUMERIC) {
+            double v = cell.getNumericCellValue();
+            long lv = (long) v;
+            if (Math.abs(v - lv) < 1e-6) {
+                return String.valueOf(lv);
+            }
+            return String.valueOf(v);
+        }
+        // 使用 DataFormatter 替代已弃用的 setCellType 方法
+        return new DataFormatter().formatCellValue(cell).trim();
+    }
+}
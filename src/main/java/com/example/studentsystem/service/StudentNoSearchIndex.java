@@ -0,0 +1,160 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.event.StudentChangeEvent;
+import com.example.studentsystem.model.User;
+import com.example.studentsystem.repository.StudentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 学号"包含"查询的内存索引，替代无法使用索引的 LIKE '%x%'。
+ * - 按用户建立三元组（trigram）倒排表：学号的每个连续 3 字符片段 -> 包含该片段的学号集合。
+ *   查询时取查询串各片段中最短的倒排列表作为候选，再逐个校验 contains，结果与 LIKE 的包含语义一致（不区分大小写，
+ *   与 MySQL 默认排序规则一致）；不足 3 个字符的查询直接扫描该用户的学号集合（仍在内存中完成）。
+ * - 用户索引在首次查询时从数据库加载，之后通过 StudentChangeEvent 增量维护（事务提交后）；
+ *   缓存的用户数有上限（LRU 淘汰），被淘汰的用户下次查询时重新加载。
+ * - 事件只在本实例内传播，其它实例或绕过服务层的写入不会进入索引，因此每个用户索引加载超过
+ *   refresh-seconds（默认 300，0 表示不过期）后，下次查询时整体从数据库重新加载，refresh-seconds 即最长的不一致时间。
+ * - 匹配数超过 maxMatches 时返回空 Optional，由调用方回退到 LIKE 查询，避免生成过长的 IN 列表。
+ */
+@Component
+public class StudentNoSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final StudentRepository repo;
+    private final boolean enabled;
+    private final int maxMatches;
+    private final long refreshNanos;
+    private final Map<Long, UserIndex> users;
+
+    public StudentNoSearchIndex(StudentRepository repo,
+                                @Value("${app.search.student-no-index.enabled:true}") boolean enabled,
+                                @Value("${app.search.student-no-index.max-users:1000}") int maxUsers,
+                                @Value("${app.search.student-no-index.max-matches:1000}") int maxMatches,
+                                @Value("${app.search.student-no-index.refresh-seconds:300}") long refreshSeconds) {
+        this.repo = repo;
+        this.enabled = enabled;
+        this.maxMatches = maxMatches;
+        this.refreshNanos = TimeUnit.SECONDS.toNanos(refreshSeconds);
+        // accessOrder=true 的 LinkedHashMap 即 LRU，超过 maxUsers 时淘汰最久未访问的用户
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserIndex> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * 查找该用户学号中包含 query 的全部学号。
+     * 索引未启用或匹配数超过上限时返回空 Optional（调用方应回退到数据库 LIKE 查询）。
+     */
+    public Optional<List<String>> findMatches(User user, String query) {
+        if (!enabled) return Optional.empty();
+        UserIndex index;
+        synchronized (users) {
+            index = users.computeIfAbsent(user.getId(), id -> new UserIndex());
+        }
+        return Optional.ofNullable(index.match(query.toLowerCase(Locale.ROOT), maxMatches, refreshNanos,
+                () -> repo.findStudentNosByUser(user)));
+    }
+
+    // 事务提交后增量更新；未加载索引的用户直接忽略，下次查询时从数据库加载
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChange(StudentChangeEvent event) {
+        if (!enabled) return;
+        UserIndex index;
+        synchronized (users) {
+            index = users.get(event.userId());
+        }
+        if (index == null) return;
+        switch (event.type()) {
+            case CREATED -> index.add(event.studentNo());
+            case UPDATED -> index.replace(event.previousStudentNo(), event.studentNo());
+            case DELETED -> index.remove(event.studentNo());
+            case BULK_CREATED -> event.studentNos().forEach(index::add);
+            case BULK_DELETED -> event.studentNos().forEach(index::remove);
+            case BULK_UPDATED -> { }
+        }
+    }
+
+    /**
+     * 单个用户的倒排索引，所有方法在实例上同步。
+     * 加载期间持有锁，同时到达的变更事件会等待加载完成后再应用，因此不会丢失更新；
+     * 增删操作是幂等的，加载结果已包含的变更再次应用不影响结果。
+     */
+    private static final class UserIndex {
+        private final Set<String> all = new HashSet<>();
+        private final Map<String, Set<String>> postings = new HashMap<>();
+        private boolean loaded;
+        private long loadedAt;
+
+        synchronized List<String> match(String key, int limit, long refreshNanos, Supplier<List<String>> loader) {
+            long now = System.nanoTime();
+            if (!loaded || (refreshNanos > 0 && now - loadedAt >= refreshNanos)) {
+                all.clear();
+                postings.clear();
+                loader.get().forEach(this::add);
+                loaded = true;
+                loadedAt = now;
+            }
+            Collection<String> candidates = all;
+            if (key.length() >= GRAM) {
+                for (int i = 0; i + GRAM <= key.length(); i++) {
+                    Set<String> posting = postings.get(key.substring(i, i + GRAM));
+                    if (posting == null) return List.of();
+                    if (posting.size() < candidates.size()) candidates = posting;
+                }
+            }
+            List<String> result = new ArrayList<>();
+            for (String studentNo : candidates) {
+                if (studentNo.toLowerCase(Locale.ROOT).contains(key)) {
+                    if (result.size() >= limit) return null;
+                    result.add(studentNo);
+                }
+            }
+            return result;
+        }
+
+        synchronized void add(String studentNo) {
+            if (studentNo == null || !all.add(studentNo)) return;
+            String lower = studentNo.toLowerCase(Locale.ROOT);
+            for (int i = 0; i + GRAM <= lower.length(); i++) {
+                postings.computeIfAbsent(lower.substring(i, i + GRAM), g -> new HashSet<>()).add(studentNo);
+            }
+        }
+
+        synchronized void remove(String studentNo) {
+            if (studentNo == null || !all.remove(studentNo)) return;
+            String lower = studentNo.toLowerCase(Locale.ROOT);
+            for (int i = 0; i + GRAM <= lower.length(); i++) {
+                String gram = lower.substring(i, i + GRAM);
+                Set<String> posting = postings.get(gram);
+                if (posting != null && posting.remove(studentNo) && posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+
+        synchronized void replace(String previous, String current) {
+            if (previous != null && previous.equals(current)) return;
+            remove(previous);
+            add(current);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.dto.StudentResponseDto;
+import com.example.studentsystem.mapper.StudentMapper;
+import com.example.studentsystem.model.Student;
+import com.example.studentsystem.model.User;
+import com.example.studentsystem.repository.StudentRepository;
+import com.example.studentsystem.search.StudentSearchIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 学生全文检索：由 StudentSearchIndex 得到按相关度排序的学生 ID，再回库读取当前页数据。
+ * 按页码翻页时 Lucene 需要收集前 (偏移量 + 每页数量) 个结果，深翻页的开销随页码线性增长，
+ * 因此只允许查看前 app.search.lucene.max-result-window（默认 10000）条结果，超出时拒绝请求。
+ */
+@Service
+@Transactional(readOnly = true)
+public class StudentSearchService {
+
+    private final StudentSearchIndex index;
+    private final StudentRepository repo;
+    private final long maxResultWindow;
+
+    public StudentSearchService(StudentSearchIndex index, StudentRepository repo,
+                                @Value("${app.search.lucene.max-result-window:10000}") long maxResultWindow) {
+        this.index = index;
+        this.repo = repo;
+        this.maxResultWindow = maxResultWindow;
+    }
+
+    /**
+     * 在当前用户的学生中检索（学号、姓名、班级、手机号、地址、性别）。
+     * 索引未启用或正在重建时返回空 Optional。
+     * @throws IllegalArgumentException 请求的页超出可查看的结果范围
+     */
+    public Optional<Page<StudentResponseDto>> search(String query, Pageable pageable, User user) throws IOException {
+        // getOffset() 为 long（页码 * 每页数量），先在 long 上校验再转换为 int，避免溢出为负数
+        long offset = pageable.getOffset();
+        if (offset + pageable.getPageSize() > maxResultWindow) {
+            throw new IllegalArgumentException("最多只能查看前 " + maxResultWindow + " 条检索结果，请增加检索条件缩小范围");
+        }
+        Optional<StudentSearchIndex.Hits> hits = index.search(user.getId(), query,
+                (int) offset, pageable.getPageSize());
+        if (hits.isEmpty()) return Optional.empty();
+        Map<Long, Student> students = repo.findByUserAndIdIn(user, hits.get().ids()).stream()
+                .collect(Collectors.toMap(Student::getId, Function.identity()));
+        // 保持索引返回的相关度顺序；索引与数据库短暂不一致时（如刚被删除）跳过缺失的记录
+        return Optional.of(new PageImpl<>(hits.get().ids().stream()
+                .map(students::get)
+                .filter(Objects::nonNull)
+                .map(StudentMapper::toDto)
+                .toList(), pageable, hits.get().total()));
+    }
+}
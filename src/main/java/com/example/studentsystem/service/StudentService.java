@@ -1,13 +1,20 @@
 package com.example.studentsystem.service;
 
+import com.example.studentsystem.dto.BulkCreateResult;
+import com.example.studentsystem.dto.BulkOperationResult;
+import com.example.studentsystem.dto.CursorPage;
+import com.example.studentsystem.dto.StudentPatchDto;
 import com.example.studentsystem.dto.StudentRequestDto;
 import com.example.studentsystem.dto.StudentResponseDto;
+import com.example.studentsystem.dto.StudentStatsDto;
 import com.example.studentsystem.model.User;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 //属于服务层的接口，实现对学生操作（增删改查 + 列表分页）。
 //引用了StudentRequestDto(请求数据源）和StudentResponseDto（create，getById，List，update，delete方法的返回值）。
 //spring Data的Page和Pageable用于分页支持。
@@ -19,8 +26,25 @@ public interface StudentService {
     Optional<StudentResponseDto> getById(Long id, User user);
     // 列出学生记录，仅支持按 studentNo 模糊查询（全部）
     Page<StudentResponseDto> list(Pageable pageable, String studentNo, User user);
+    // 游标（keyset）分页：按 (排序字段, id) 定位下一页，查询耗时与翻页深度无关；sort 形如 "studentNo" 或 "studentNo,desc"，
+    // 仅支持 id 与 studentNo；withTotal 为 false 时不执行 count 查询。
+    CursorPage<StudentResponseDto> scroll(String cursor, int size, String sort, String studentNo, boolean withTotal, User user);
     // 更新学生记录
     Optional<StudentResponseDto> update(Long id, StudentRequestDto dto, User user);
     // 删除学生记录，返回删除是否成功的布尔值。
     boolean delete(Long id, User user);
+    // 批量创建学生：学号重复的条目被跳过，其余按批次 JDBC 批量写入并逐批提交，返回每批耗时。
+    BulkCreateResult bulkCreate(List<StudentRequestDto> dtos, User user);
+    // 按主键顺序分段遍历该用户的全部学生（每段单独查询，不在内存中累积），用于流式导出。
+    void forEachStudent(User user, Consumer<StudentResponseDto> consumer);
+    // 创建批量写入器（已预加载该用户的学号），适合导入等边读边写的场景，调用 finish() 完成写入。
+    StudentBulkInserter bulkInserter(User user);
+    // 统计该用户的学生总数、性别、班级与年龄段分布（分组聚合查询，不加载学生实体）。
+    StudentStatsDto stats(User user);
+    // 批量删除：按段执行 DELETE ... WHERE user_id = ? AND id IN (...)，返回每个 ID 的结果（DELETED / NOT_FOUND）。
+    BulkOperationResult bulkDelete(List<Long> ids, User user);
+    // 批量修改班级、性别、地址：按段执行一条 UPDATE，返回每个 ID 的结果（UPDATED / NOT_FOUND）。
+    BulkOperationResult bulkPatch(StudentPatchDto patch, User user);
+    // 批量覆盖写入：按学号匹配，已存在的更新、不存在的创建；逐段独立提交，返回每一项的结果。
+    BulkOperationResult bulkUpsert(List<StudentRequestDto> dtos, User user);
 }
\ No newline at end of file
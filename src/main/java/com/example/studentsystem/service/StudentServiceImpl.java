@@ -1,28 +1,102 @@
 package com.example.studentsystem.service;
 
+import com.example.studentsystem.dto.BulkCreateResult;
+import com.example.studentsystem.dto.BulkOperationResult;
+import com.example.studentsystem.dto.CursorPage;
+import com.example.studentsystem.dto.StudentPatchDto;
 import com.example.studentsystem.dto.StudentRequestDto;
 import com.example.studentsystem.dto.StudentResponseDto;
+import com.example.studentsystem.dto.StudentStatsDto;
+import com.example.studentsystem.event.StudentChangeEvent;
 import com.example.studentsystem.exception.DuplicateResourceException;
 import com.example.studentsystem.mapper.StudentMapper;
 import com.example.studentsystem.model.Student;
 import com.example.studentsystem.model.User;
 import com.example.studentsystem.repository.StudentRepository;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @Transactional
 public class StudentServiceImpl implements StudentService {
+    //统计接口返回的班级数上限，其余班级合计为 otherClasses
+    private static final int STATS_TOP_CLASSES = 10;
+    //年龄段边界（周岁），与 countByAgeGroup 的四个参数对应
+    private static final int[] AGE_BOUNDS = {12, 15, 18, 23};
+    private static final String[] AGE_GROUPS = {"未知", "12岁以下", "12-14岁", "15-17岁", "18-22岁", "23岁及以上"};
+    //批量覆盖写入时更新已有学生（学号不变）
+    private static final String UPSERT_UPDATE_SQL = "UPDATE students SET name = ?, gender = ?, dob = ?, phone = ?, "
+            + "address = ?, class_name = ? WHERE id = ? AND user_id = ?";
     //repo对 Student 实体执行 增删查改、分页、排序 等操作
     private final StudentRepository repo;
+    //批量写入使用 JdbcTemplate，每个批次在独立事务中提交
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    //每批写入的行数，可通过 app.import.batch-size 配置；批量删除/修改的 IN 列表同样按此分段
+    private final int batchSize;
+    //导出时每段读取的行数，可通过 app.export.chunk-size 配置
+    private final int exportChunkSize;
+    //写入后发布 StudentChangeEvent，供学号索引等监听方增量更新
+    private final ApplicationEventPublisher eventPublisher;
+    //学号"包含"查询的内存索引，命中时以 IN 精确查询代替 LIKE '%x%'
+    private final StudentNoSearchIndex studentNoIndex;
+    //批量覆盖写入逐项校验，校验失败的项单独报告，不影响其它项
+    private final Validator validator;
+    //导出逐段读取后清理持久化上下文（请求线程上可能绑定了 Open Session In View 的 EntityManager）
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public StudentServiceImpl(StudentRepository repo) {
+    public StudentServiceImpl(StudentRepository repo,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              ApplicationEventPublisher eventPublisher,
+                              StudentNoSearchIndex studentNoIndex,
+                              Validator validator,
+                              @Value("${app.import.batch-size:500}") int batchSize,
+                              @Value("${app.export.chunk-size:1000}") int exportChunkSize) {
         this.repo = repo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.studentNoIndex = studentNoIndex;
+        this.validator = validator;
+        this.batchSize = Math.max(1, batchSize);
+        this.exportChunkSize = Math.max(1, exportChunkSize);
     }
 
     @Override
@@ -35,35 +109,94 @@ public class StudentServiceImpl implements StudentService {
         Student s = StudentMapper.toEntity(dto, user);
         //保存实体对象到数据库
         Student saved = repo.save(s);
+        eventPublisher.publishEvent(StudentChangeEvent.created(user.getId(), saved.getId(), saved.getStudentNo()));
         //将保存后的实体对象转换为 DTO 并返回
         return StudentMapper.toDto(saved);
     }
 
     @Override
     @Transactional(readOnly = true)
-    //根据ID和所属用户获取学生记录
+    //根据ID和所属用户获取学生记录（直接查询为 DTO，不加载实体）
     public Optional<StudentResponseDto> getById(Long id, User user) {
-        return repo.findByIdAndUser(id, user).map(StudentMapper::toDto);
+        return repo.findDtoByIdAndUser(id, user);
     }
 
     @Override
     @Transactional(readOnly = true)
-    //根据学生学号查询学生记录
+    //根据学生学号查询学生记录；各分支都直接查询为 DTO，不加载实体
     public Page<StudentResponseDto> list(Pageable pageable, String studentNo, User user) {
         // 若提供 studentNo，则按“包含”进行模糊分页查询（用户输入越多，结果越少）
         if (studentNo != null && !studentNo.isBlank()) {
-            return repo.findByUserAndStudentNoContaining(user, studentNo, pageable).map(StudentMapper::toDto);
+            // 优先使用内存学号索引得到匹配的学号，再按唯一索引 (student_no, user_id) 精确查询；索引不可用时回退 LIKE
+            Optional<List<String>> matches = studentNoIndex.findMatches(user, studentNo);
+            if (matches.isPresent()) {
+                if (matches.get().isEmpty()) return Page.empty(pageable);
+                return repo.findDtoByUserAndStudentNoIn(user, matches.get(), pageable);
+            }
+            return repo.findDtoByUserAndStudentNoContaining(user, studentNo, pageable);
         }
         // 默认返回该用户的全部学生（分页）
-        return repo.findByUser(user, pageable).map(StudentMapper::toDto);
+        return repo.findDtoByUser(user, pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    //游标分页：解析排序与游标，按 (排序字段, id) 的键集条件查询下一页
+    public CursorPage<StudentResponseDto> scroll(String cursor, int size, String sort, String studentNo, boolean withTotal, User user) {
+        String[] sortParts = (sort == null || sort.isBlank() ? StudentCursor.ID : sort).split(",");
+        String sortKey = sortParts[0].trim();
+        if (!StudentCursor.ID.equals(sortKey) && !StudentCursor.STUDENT_NO.equals(sortKey)) {
+            throw new IllegalArgumentException("游标分页仅支持按 id 或 studentNo 排序");
+        }
+        boolean descending = sortParts.length > 1 && "desc".equalsIgnoreCase(sortParts[1].trim());
+        Sort.Direction direction = descending ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // id 作为第二排序键保证顺序唯一
+        Sort order = StudentCursor.ID.equals(sortKey)
+                ? Sort.by(direction, StudentCursor.ID)
+                : Sort.by(direction, sortKey).and(Sort.by(direction, StudentCursor.ID));
+        ScrollPosition position = cursor == null || cursor.isBlank()
+                ? ScrollPosition.keyset()
+                : ScrollPosition.forward(StudentCursor.decode(cursor, sortKey, descending).keys());
+
+        boolean filtered = studentNo != null && !studentNo.isBlank();
+        Limit limit = Limit.of(Math.max(1, size));
+        Optional<List<String>> matches = filtered ? studentNoIndex.findMatches(user, studentNo) : Optional.empty();
+        Window<Student> window;
+        if (!filtered) {
+            window = repo.findByUser(user, position, order, limit);
+        } else if (matches.isPresent()) {
+            window = matches.get().isEmpty()
+                    ? Window.from(List.of(), i -> position)
+                    : repo.findByUserAndStudentNoIn(user, matches.get(), position, order, limit);
+        } else {
+            window = repo.findByUserAndStudentNoContaining(user, studentNo, position, order, limit);
+        }
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            Student last = window.getContent().get(window.size() - 1);
+            nextCursor = StudentCursor.encode(sortKey, descending, last.getId(),
+                    StudentCursor.ID.equals(sortKey) ? null : last.getStudentNo());
+        }
+        Long total = null;
+        if (withTotal) {
+            if (matches.isPresent()) {
+                total = (long) matches.get().size();
+            } else {
+                total = filtered ? repo.countByUserAndStudentNoContaining(user, studentNo) : repo.countByUser(user);
+            }
+        }
+        return new CursorPage<>(window.map(StudentMapper::toDto).getContent(), nextCursor, nextCursor != null, total);
     }
 
     @Override
     //更新学生记录
     public Optional<StudentResponseDto> update(Long id, StudentRequestDto dto, User user) {
         return repo.findByIdAndUser(id, user).map(existing -> {
+            String previousStudentNo = existing.getStudentNo();
             StudentMapper.updateEntityFromDto(dto, existing);
             Student saved = repo.save(existing);
+            eventPublisher.publishEvent(StudentChangeEvent.updated(user.getId(), saved.getId(), previousStudentNo, saved.getStudentNo()));
             return StudentMapper.toDto(saved);
         });
     }
@@ -71,8 +204,255 @@ public class StudentServiceImpl implements StudentService {
     @Override
     //删除学生记录
     public boolean delete(Long id, User user) {
-        if (!repo.existsByIdAndUser(id, user)) return false;
-        repo.deleteById(id);
+        Optional<Student> existing = repo.findByIdAndUser(id, user);
+        if (existing.isEmpty()) return false;
+        repo.delete(existing.get());
+        eventPublisher.publishEvent(StudentChangeEvent.deleted(user.getId(), id, existing.get().getStudentNo()));
         return true;
     }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    //分段遍历：每段一次短查询，不持有贯穿整个导出过程的事务与连接
+    public void forEachStudent(User user, Consumer<StudentResponseDto> consumer) {
+        long lastId = 0L;
+        while (true) {
+            List<Student> chunk = repo.findByUserAndIdGreaterThanOrderByIdAsc(user, lastId, Limit.of(exportChunkSize));
+            for (Student s : chunk) {
+                consumer.accept(StudentMapper.toDto(s));
+            }
+            entityManager.clear();
+            if (chunk.size() < exportChunkSize) return;
+            lastId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    //批量创建：不加入外层事务，由写入器逐批提交
+    public BulkCreateResult bulkCreate(List<StudentRequestDto> dtos, User user) {
+        StudentBulkInserter inserter = bulkInserter(user);
+        dtos.forEach(inserter::add);
+        return inserter.finish();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    //预加载该用户已有学号（一次查询），后续去重全部在内存中完成
+    public StudentBulkInserter bulkInserter(User user) {
+        HashSet<String> known = new HashSet<>(repo.findStudentNosByUser(user));
+        return new StudentBulkInserter(user.getId(), known, batchSize, jdbcTemplate, transactionTemplate, eventPublisher);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    //三条分组聚合查询，数据库只返回每组的计数，结果大小与学生数量无关
+    public StudentStatsDto stats(User user) {
+        Map<String, Long> genders = new LinkedHashMap<>();
+        genders.put("男", 0L);
+        genders.put("女", 0L);
+        long total = 0;
+        for (Object[] row : repo.countByGender(user)) {
+            long count = (Long) row[1];
+            genders.merge(labelOf((String) row[0], "未知"), count, Long::sum);
+            total += count;
+        }
+
+        Map<String, Long> classCounts = new LinkedHashMap<>();
+        for (Object[] row : repo.countByClassName(user)) {
+            classCounts.merge(labelOf((String) row[0], "未分班"), (Long) row[1], Long::sum);
+        }
+        List<StudentStatsDto.ClassCount> sorted = new ArrayList<>();
+        classCounts.forEach((name, count) -> sorted.add(new StudentStatsDto.ClassCount(name, count)));
+        //空班级名（null 与空串）合并后顺序可能被打乱，重新按人数降序
+        sorted.sort((a, b) -> Long.compare(b.count(), a.count()));
+        List<StudentStatsDto.ClassCount> classes = List.copyOf(sorted.subList(0, Math.min(STATS_TOP_CLASSES, sorted.size())));
+        long otherClasses = 0;
+        for (StudentStatsDto.ClassCount c : sorted.subList(classes.size(), sorted.size())) {
+            otherClasses += c.count();
+        }
+
+        LocalDate today = LocalDate.now();
+        Object[] ages = repo.countByAgeGroup(user, today.minusYears(AGE_BOUNDS[0]), today.minusYears(AGE_BOUNDS[1]),
+                today.minusYears(AGE_BOUNDS[2]), today.minusYears(AGE_BOUNDS[3])).get(0);
+        Map<String, Long> ageGroups = new LinkedHashMap<>();
+        for (int i = 0; i < AGE_GROUPS.length; i++) {
+            //没有学生时 SUM 返回 null
+            ageGroups.put(AGE_GROUPS[i], ages[i] == null ? 0L : ((Number) ages[i]).longValue());
+        }
+        return new StudentStatsDto(total, genders, classes, otherClasses, ageGroups);
+    }
+
+    @Override
+    //整个请求一个事务：每段先查出属于该用户的学生（用于逐项结果与事件），再一条 DELETE 删除
+    public BulkOperationResult bulkDelete(List<Long> ids, User user) {
+        List<BulkOperationResult.Outcome> outcomes = new ArrayList<>(ids.size());
+        List<Long> deletedIds = new ArrayList<>();
+        List<String> deletedNos = new ArrayList<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(ids)))) {
+            Map<Long, String> found = findOwned(chunk, user);
+            if (!found.isEmpty()) {
+                repo.deleteByUserAndIdIn(user, found.keySet());
+            }
+            for (Long id : chunk) {
+                String studentNo = found.get(id);
+                if (studentNo == null) {
+                    outcomes.add(new BulkOperationResult.Outcome(id, null, BulkOperationResult.Status.NOT_FOUND, "学生不存在"));
+                } else {
+                    outcomes.add(new BulkOperationResult.Outcome(id, studentNo, BulkOperationResult.Status.DELETED, null));
+                    deletedIds.add(id);
+                    deletedNos.add(studentNo);
+                }
+            }
+        }
+        if (!deletedIds.isEmpty()) {
+            eventPublisher.publishEvent(StudentChangeEvent.bulkDeleted(user.getId(), deletedIds, deletedNos));
+        }
+        return BulkOperationResult.of(outcomes);
+    }
+
+    @Override
+    //整个请求一个事务：每段先查出属于该用户的学生，再一条 UPDATE 修改
+    public BulkOperationResult bulkPatch(StudentPatchDto patch, User user) {
+        List<BulkOperationResult.Outcome> outcomes = new ArrayList<>(patch.getIds().size());
+        List<Long> updatedIds = new ArrayList<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(new LinkedHashSet<>(patch.getIds())))) {
+            Map<Long, String> found = findOwned(chunk, user);
+            if (!found.isEmpty()) {
+                repo.patchByUserAndIdIn(user, found.keySet(), patch.getClassName(), patch.getGender(), patch.getAddress());
+            }
+            for (Long id : chunk) {
+                String studentNo = found.get(id);
+                if (studentNo == null) {
+                    outcomes.add(new BulkOperationResult.Outcome(id, null, BulkOperationResult.Status.NOT_FOUND, "学生不存在"));
+                } else {
+                    outcomes.add(new BulkOperationResult.Outcome(id, studentNo, BulkOperationResult.Status.UPDATED, null));
+                    updatedIds.add(id);
+                }
+            }
+        }
+        if (!updatedIds.isEmpty()) {
+            eventPublisher.publishEvent(StudentChangeEvent.bulkUpdated(user.getId(), updatedIds));
+        }
+        return BulkOperationResult.of(outcomes);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    //不加入外层事务：校验与请求内去重在内存中完成，之后每段在独立事务中执行
+    //"按学号查询已有学生 + 批量 UPDATE + 批量 INSERT + 回读新建学生的 ID"；某段失败时回滚该段并逐项重试，定位失败的项
+    public BulkOperationResult bulkUpsert(List<StudentRequestDto> dtos, User user) {
+        BulkOperationResult.Outcome[] outcomes = new BulkOperationResult.Outcome[dtos.size()];
+        Set<String> seen = new HashSet<>();
+        List<Integer> valid = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            StudentRequestDto dto = dtos.get(i);
+            Set<ConstraintViolation<StudentRequestDto>> violations = dto == null ? Set.of() : validator.validate(dto);
+            if (dto == null || !violations.isEmpty()) {
+                String message = dto == null ? "内容为空" : violations.stream()
+                        .map(v -> v.getPropertyPath() + ": " + v.getMessage()).sorted().collect(Collectors.joining("; "));
+                outcomes[i] = new BulkOperationResult.Outcome(null, dto == null ? null : dto.getStudentNo(),
+                        BulkOperationResult.Status.INVALID, message);
+            } else if (!seen.add(dto.getStudentNo())) {
+                outcomes[i] = new BulkOperationResult.Outcome(null, dto.getStudentNo(),
+                        BulkOperationResult.Status.DUPLICATE, "请求中学号重复，只处理第一次出现的项");
+            } else {
+                valid.add(i);
+            }
+        }
+        for (List<Integer> chunk : chunks(valid)) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> upsertChunk(chunk, dtos, outcomes, user));
+            } catch (DataAccessException chunkFailure) {
+                // 该段整体回滚后逐项重试
+                for (Integer index : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> upsertChunk(List.of(index), dtos, outcomes, user));
+                    } catch (DataAccessException e) {
+                        outcomes[index] = new BulkOperationResult.Outcome(null, dtos.get(index).getStudentNo(),
+                                BulkOperationResult.Status.FAILED, e.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+        return BulkOperationResult.of(List.of(outcomes));
+    }
+
+    //在当前事务中写入一段（indexes 为 dtos 中的下标），提交前发布事件，结果写入 outcomes
+    private void upsertChunk(List<Integer> indexes, List<StudentRequestDto> dtos,
+                             BulkOperationResult.Outcome[] outcomes, User user) {
+        List<String> studentNos = indexes.stream().map(i -> dtos.get(i).getStudentNo()).toList();
+        Map<String, Long> existing = new HashMap<>();
+        for (Object[] row : repo.findIdsByUserAndStudentNoIn(user, studentNos)) {
+            existing.put((String) row[1], (Long) row[0]);
+        }
+        List<Integer> updates = new ArrayList<>();
+        List<Integer> inserts = new ArrayList<>();
+        for (Integer i : indexes) {
+            (existing.containsKey(dtos.get(i).getStudentNo()) ? updates : inserts).add(i);
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_UPDATE_SQL, updates, updates.size(), (ps, i) ->
+                    bindUpdate(ps, existing.get(dtos.get(i).getStudentNo()), user.getId(), dtos.get(i)));
+        }
+        Map<String, Long> created = new HashMap<>();
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(StudentBulkInserter.INSERT_SQL, inserts, inserts.size(), (ps, i) ->
+                    StudentBulkInserter.bind(ps, user.getId(), dtos.get(i)));
+            List<String> insertedNos = inserts.stream().map(i -> dtos.get(i).getStudentNo()).toList();
+            for (Object[] row : repo.findIdsByUserAndStudentNoIn(user, insertedNos)) {
+                created.put((String) row[1], (Long) row[0]);
+            }
+            eventPublisher.publishEvent(StudentChangeEvent.bulkCreated(user.getId(), insertedNos));
+        }
+        if (!updates.isEmpty()) {
+            eventPublisher.publishEvent(StudentChangeEvent.bulkUpdated(user.getId(),
+                    updates.stream().map(i -> existing.get(dtos.get(i).getStudentNo())).toList()));
+        }
+        for (Integer i : updates) {
+            String studentNo = dtos.get(i).getStudentNo();
+            outcomes[i] = new BulkOperationResult.Outcome(existing.get(studentNo), studentNo, BulkOperationResult.Status.UPDATED, null);
+        }
+        for (Integer i : inserts) {
+            String studentNo = dtos.get(i).getStudentNo();
+            outcomes[i] = new BulkOperationResult.Outcome(created.get(studentNo), studentNo, BulkOperationResult.Status.CREATED, null);
+        }
+    }
+
+    private static void bindUpdate(PreparedStatement ps, Long id, Long userId, StudentRequestDto dto) throws SQLException {
+        ps.setString(1, dto.getName());
+        ps.setString(2, dto.getGender());
+        if (dto.getDob() != null) {
+            ps.setDate(3, Date.valueOf(dto.getDob()));
+        } else {
+            ps.setNull(3, Types.DATE);
+        }
+        ps.setString(4, dto.getPhone());
+        ps.setString(5, dto.getAddress());
+        ps.setString(6, dto.getClassName());
+        ps.setLong(7, id);
+        ps.setLong(8, userId);
+    }
+
+    //查询 ids 中属于该用户的学生：id -> 学号
+    private Map<Long, String> findOwned(List<Long> ids, User user) {
+        Map<Long, String> found = new HashMap<>();
+        for (Object[] row : repo.findStudentNosByUserAndIdIn(user, ids)) {
+            found.put((Long) row[0], (String) row[1]);
+        }
+        return found;
+    }
+
+    //按 batchSize 切分，控制单条语句的 IN 列表长度
+    private <T> List<List<T>> chunks(List<T> items) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchSize) {
+            chunks.add(items.subList(from, Math.min(items.size(), from + batchSize)));
+        }
+        return chunks;
+    }
+
+    private static String labelOf(String value, String blank) {
+        return value == null || value.isBlank() ? blank : value.trim();
+    }
 }
\ No newline at end of file
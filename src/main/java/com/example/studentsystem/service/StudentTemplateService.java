@@ -0,0 +1,91 @@
+package com.example.studentsystem.service;
+
+import com.example.studentsystem.mapper.StudentMapper;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HexFormat;
+
+/**
+ * Excel 导入模板。
+ * 模板内容固定，首次请求时生成一次字节内容并缓存，同时计算 ETag（内容 SHA-256）与 Last-Modified，
+ * 后续请求直接返回缓存，配合条件请求（If-None-Match / If-Modified-Since）可直接返回 304。
+ */
+@Service
+public class StudentTemplateService {
+
+    /**
+     * 已生成的模板：字节内容、强 ETag（带引号）与生成时间（秒精度，用于 Last-Modified）。
+     */
+    public record Template(byte[] bytes, String etag, Instant lastModified) {
+    }
+
+    // 第2行示例数据，与 StudentMapper.EXCEL_HEADERS 列顺序一致
+    private static final String[] EXAMPLE_ROW = {"张三", "2025001", "男", "2005-06-15", "高一1班", "13800001111", "北京市朝阳区"};
+
+    private volatile Template template;
+
+    /**
+     * 获取模板（懒加载，仅生成一次）
+     */
+    public Template get() {
+        Template t = template;
+        if (t == null) {
+            synchronized (this) {
+                t = template;
+                if (t == null) {
+                    t = build();
+                    template = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    private static Template build() {
+        try (Workbook workbook = WorkbookFactory.create(true)) { // true -> XSSF (.xlsx)
+            Sheet sheet = workbook.createSheet("Students");
+            //第1行：表头
+            Row header = sheet.createRow(0);
+            //第2行：给出示例数据
+            Row example = sheet.createRow(1);
+            String[] headers = StudentMapper.EXCEL_HEADERS;
+            for (int i = 0; i < headers.length; i++) {
+                header.createCell(i).setCellValue(headers[i]);
+                example.createCell(i).setCellValue(EXAMPLE_ROW[i]);
+                // 按内容显示宽度直接设置列宽，替代需要测量字体的 autoSizeColumn
+                int width = Math.max(displayWidth(headers[i]), displayWidth(EXAMPLE_ROW[i])) + 2;
+                sheet.setColumnWidth(i, width * 256);
+            }
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            workbook.write(bos);
+            byte[] bytes = bos.toByteArray();
+            String etag = "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes), 0, 16) + "\"";
+            return new Template(bytes, etag, Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        } catch (IOException e) {
+            throw new UncheckedIOException("生成导入模板失败", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // 估算显示宽度：中文等全角字符按 2 个字符宽度计算
+    private static int displayWidth(String text) {
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            width += text.charAt(i) > 0xFF ? 2 : 1;
+        }
+        return width;
+    }
+}
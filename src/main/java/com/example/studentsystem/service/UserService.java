@@ -1,13 +1,24 @@
 package com.example.studentsystem.service;
 
+import com.example.studentsystem.event.UserChangeEvent;
 import com.example.studentsystem.model.Role;
 import com.example.studentsystem.model.User;
 import com.example.studentsystem.repository.UserRepository;
+import com.example.studentsystem.security.UserDetailsCache;
+import com.example.studentsystem.security.jwt.RefreshTokenService;
+import com.example.studentsystem.security.jwt.TokenRevocationService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Instant;
+import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Function;
 
 /**
  * UserService
@@ -23,6 +34,10 @@ import java.util.Set;
  * - 注册时先检查重复用户名，抛出业务异常防止覆盖已有账户。
  * - 通过 ensureAdminExists 提供系统启动自检/初始化入口，防止无管理员无法管理系统。
  * - loadUserByUsername 把 UsernameNotFoundException 抛出给 Spring Security，用于认证失败分支。
+ * - 注册、重置密码、修改角色后失效 UserDetailsCache 中对应用户，保证已认证请求读到最新的密码与角色。
+ * - 重置密码、强制下线时更新 tokensValidAfter，使该用户此前签发的 token 全部失效，并吊销其全部刷新令牌。
+ * - 创建用户、修改角色时在写入事务内发布 UserChangeEvent，供管理员统计增量更新；
+ *   只有保存与发布放在事务中，密码哈希与缓存失效都在事务之外，不占用数据库连接。
  */
 @Service
 public class UserService {
@@ -30,15 +45,33 @@ public class UserService {
     // 依赖注入：仓库用于持久化操作，PasswordEncoder 用于安全加密密码
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    // 已认证请求使用的用户缓存，用户信息变更后需失效
+    private final UserDetailsCache userDetailsCache;
+    // token 吊销服务，使用户级吊销在本实例立即生效
+    private final TokenRevocationService tokenRevocationService;
+    // 刷新令牌服务，重置密码、强制下线时吊销用户的全部刷新令牌
+    private final RefreshTokenService refreshTokenService;
+    // 用户创建、角色变更后发布 UserChangeEvent
+    private final ApplicationEventPublisher eventPublisher;
+    // 保存用户与发布事件放在同一事务中
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * 构造注入：
      * - 保证依赖的不可变性（final）。
      * - PasswordEncoder 由配置中定义。
      */
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder){
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       UserDetailsCache userDetailsCache, TokenRevocationService tokenRevocationService,
+                       RefreshTokenService refreshTokenService, ApplicationEventPublisher eventPublisher,
+                       PlatformTransactionManager transactionManager){
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userDetailsCache = userDetailsCache;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -67,7 +100,9 @@ public class UserService {
         u.setPassword(passwordEncoder.encode(rawPassword)); // 密码加密
         u.setEmail(email != null ? email.trim().toLowerCase() : null); // 邮箱预处理
         u.setRoles(Set.of(Role.ROLE_USER)); // 默认授予普通用户角色
-        return userRepository.save(u);
+        User saved = saveAndPublish(u, created -> UserChangeEvent.created(created.getId(), created.getRoles()));
+        userDetailsCache.invalidate(saved.getUsername());
+        return saved;
     }
 
     /**
@@ -106,7 +141,7 @@ public class UserService {
     public void ensureAdminExists(String adminUser, String adminPass) {
         if (userRepository.findByUsername(adminUser).isEmpty()) {
             User admin = new User(adminUser, passwordEncoder.encode(adminPass), Set.of(Role.ROLE_ADMIN));
-            userRepository.save(admin);
+            saveAndPublish(admin, created -> UserChangeEvent.created(created.getId(), created.getRoles()));
         }
     }
 
@@ -116,7 +151,7 @@ public class UserService {
      * 流程：
      * 1. 根据邮箱查找用户，若不存在抛出异常。
      * 2. 使用 PasswordEncoder 对新密码加密。
-     * 3. 更新并保存用户。
+     * 3. 更新 tokensValidAfter 使旧 token 全部失效，并保存用户。
      * @param email 用户邮箱
      * @param newPassword 新密码（未加密）
      * @throws IllegalArgumentException 若邮箱不存在
@@ -125,6 +160,74 @@ public class UserService {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new IllegalArgumentException("该邮箱未注册"));
         user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        user.setTokensValidAfter(Instant.now());
+        User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getUsername());
+        tokenRevocationService.userTokensRevoked(saved);
+        refreshTokenService.revokeAll(saved.getId());
+    }
+
+    /**
+     * upgradePassword
+     * 功能：登录成功后写回按当前 BCrypt 强度重新计算的密码哈希（由 DaoAuthenticationProvider 调用）。
+     * 不影响已签发的 token。
+     * @param userDetails 本次登录的用户
+     * @param encodedPassword 已加密的新哈希
+     * @return 更新后的用户
+     */
+    public UserDetails upgradePassword(UserDetails userDetails, String encodedPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("用户不存在"));
+        user.setPassword(encodedPassword);
+        User saved = userRepository.save(user);
+        userDetailsCache.invalidate(saved.getUsername());
+        return saved;
+    }
+
+    /**
+     * revokeTokens
+     * 功能：强制下线，使用户此前签发的全部 token 与刷新令牌失效（之后重新登录签发的 token 不受影响）。
+     * @param userId 用户 ID
+     * @return 更新后的用户
+     * @throws IllegalArgumentException 若用户不存在
+     */
+    public User revokeTokens(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+        user.setTokensValidAfter(Instant.now());
+        User saved = userRepository.save(user);
+        tokenRevocationService.userTokensRevoked(saved);
+        refreshTokenService.revokeAll(saved.getId());
+        return saved;
+    }
+
+    /**
+     * updateRoles
+     * 功能：修改用户的角色集合，并失效该用户的缓存，使新角色在下一个请求即生效。
+     * @param userId 用户 ID
+     * @param roles 新的角色集合（不能为空）
+     * @return 更新后的用户
+     * @throws IllegalArgumentException 若用户不存在或角色集合为空
+     */
+    public User updateRoles(Long userId, Set<Role> roles) {
+        if (roles == null || roles.isEmpty()) {
+            throw new IllegalArgumentException("角色不能为空");
+        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("用户不存在"));
+        Set<Role> previousRoles = Set.copyOf(user.getRoles());
+        user.setRoles(new HashSet<>(roles));
+        User saved = saveAndPublish(user, updated -> UserChangeEvent.rolesChanged(updated.getId(), previousRoles, updated.getRoles()));
+        userDetailsCache.invalidate(saved.getUsername());
+        return saved;
+    }
+
+    // 在同一事务中保存用户并发布事件，监听方在提交后处理
+    private User saveAndPublish(User user, Function<User, UserChangeEvent> event) {
+        return transactionTemplate.execute(status -> {
+            User saved = userRepository.save(user);
+            eventPublisher.publishEvent(event.apply(saved));
+            return saved;
+        });
     }
 }
@@ -0,0 +1,117 @@
+package com.example.studentsystem.verification;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存验证码存储（app.verification.store=memory）。
+ * - 每个 (邮箱, 场景) 只保留最新的一条验证码，新验证码直接替换旧条目，旧验证码随之失效。
+ * - 条目是不可变对象，校验时计算出新状态后用 ConcurrentHashMap.replace(key, old, new) 比较并替换，
+ *   并发校验同一验证码时错误次数不会丢失，也不会有两个请求同时通过一次性的状态转换。
+ * - 每个条目有自己的过期时间；定时任务删除已过期的条目，内存占用与有效期内的发送量成正比。
+ */
+@Component
+@ConditionalOnProperty(name = "app.verification.store", havingValue = "memory")
+public class InMemoryVerificationCodeStore implements VerificationCodeStore {
+
+    // 状态：0=未使用，1=已通过，2=失效/已过期（与 email_verification_code.status 一致）
+    private record Entry(String code, long expiresAt, int tryCount, int status, LocalDateTime createdAt) {
+
+        Entry withTryCount(int tryCount) {
+            return new Entry(code, expiresAt, tryCount, status, createdAt);
+        }
+
+        Entry withStatus(int status) {
+            return new Entry(code, expiresAt, tryCount, status, createdAt);
+        }
+    }
+
+    private final Map<String, Entry> codes = new ConcurrentHashMap<>();
+    private final LongAdder swept = new LongAdder();
+
+    @Override
+    public void save(String email, String scene, String code, Duration ttl) {
+        codes.put(key(email, scene),
+                new Entry(code, System.currentTimeMillis() + ttl.toMillis(), 0, 0, LocalDateTime.now()));
+    }
+
+    @Override
+    public Verification verify(String email, String scene, String code, int maxTries) {
+        String key = key(email, scene);
+        while (true) {
+            Entry current = codes.get(key);
+            if (current == null) {
+                return new Verification(Result.NOT_FOUND, 0);
+            }
+            if (current.status() == 2) {
+                return new Verification(Result.INVALIDATED, 0);
+            }
+            Entry updated;
+            Verification verification;
+            if (System.currentTimeMillis() > current.expiresAt()) {
+                updated = current.withStatus(2);
+                verification = new Verification(Result.EXPIRED, 0);
+            } else if (current.tryCount() >= maxTries) {
+                updated = current.withStatus(2);
+                verification = new Verification(Result.TOO_MANY_TRIES, 0);
+            } else if (!code.equals(current.code())) {
+                updated = current.withTryCount(current.tryCount() + 1);
+                verification = new Verification(Result.MISMATCH, maxTries - updated.tryCount());
+            } else {
+                updated = current.withStatus(1);
+                verification = new Verification(Result.OK, 0);
+            }
+            // 期间条目被其它请求修改或被新验证码替换时重新判断
+            if (codes.replace(key, current, updated)) {
+                return verification;
+            }
+        }
+    }
+
+    @Override
+    public SendHistory sendHistory(String email, String scene, LocalDateTime since) {
+        Entry entry = codes.get(key(email, scene));
+        if (entry == null) {
+            return new SendHistory(null, 0);
+        }
+        // 只保留了最新一条，当日更早的发送次数已无从得知
+        return new SendHistory(entry.createdAt(), entry.createdAt().isAfter(since) ? 1 : 0);
+    }
+
+    /**
+     * 定期删除已过期的验证码
+     */
+    @Scheduled(initialDelayString = "${app.verification.memory.sweep-interval-ms:60000}",
+            fixedDelayString = "${app.verification.memory.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        codes.values().removeIf(entry -> {
+            if (entry.expiresAt() < now) {
+                swept.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("store", "memory");
+        metrics.put("entries", codes.size());
+        metrics.put("expiredRemoved", swept.sum());
+        return metrics;
+    }
+
+    private static String key(String email, String scene) {
+        return email + '|' + scene;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.studentsystem.verification;
+
+import com.example.studentsystem.model.EmailVerificationCode;
+import com.example.studentsystem.repository.EmailVerificationCodeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于 email_verification_code 表的验证码存储（默认）。
+ * 状态：0=未使用，1=已通过，2=失效/已过期。
+ * 定时清理过期超过 app.verification.purge.retention-hours（默认 24 小时）的记录：
+ * - 保留期内的记录仍可供限流器在重启后恢复当日发送次数。
+ * - 每批先按 ID 取出 batch-size 条再按 ID 删除，每批是一个独立的短事务，批之间暂停 batch-pause-ms，
+ *   避免一次删除大量行长时间持有锁、阻塞正在发送或校验验证码的请求。
+ */
+@Component
+@ConditionalOnProperty(name = "app.verification.store", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class JpaVerificationCodeStore implements VerificationCodeStore {
+
+    private final EmailVerificationCodeRepository codeRepository;
+    private final Duration retention;
+    private final int batchSize;
+    private final long batchPauseMs;
+
+    private final LongAdder purgeRuns = new LongAdder();
+    private final LongAdder purgedRows = new LongAdder();
+    private final LongAdder purgeMillis = new LongAdder();
+    private volatile Instant lastPurgeAt;
+    private volatile int lastPurgeRows;
+    private volatile long lastPurgeMillis;
+
+    public JpaVerificationCodeStore(EmailVerificationCodeRepository codeRepository,
+                                    @Value("${app.verification.purge.retention-hours:24}") long retentionHours,
+                                    @Value("${app.verification.purge.batch-size:500}") int batchSize,
+                                    @Value("${app.verification.purge.batch-pause-ms:50}") long batchPauseMs) {
+        this.codeRepository = codeRepository;
+        this.retention = Duration.ofHours(retentionHours);
+        this.batchSize = batchSize;
+        this.batchPauseMs = batchPauseMs;
+    }
+
+    @Override
+    @Transactional
+    public void save(String email, String scene, String code, Duration ttl) {
+        // 查找该邮箱在该场景下的旧记录，如果存在则作废
+        codeRepository.findFirstByEmailAndSceneOrderByCreatedTimeDesc(email, scene)
+                .ifPresent(oldRecord -> {
+                    oldRecord.setStatus(2); // 设为失效
+                    codeRepository.save(oldRecord);
+                });
+
+        // 创建新记录
+        EmailVerificationCode newRecord = EmailVerificationCode.builder()
+                .email(email)
+                .code(code)
+                .scene(scene)
+                .expireTime(LocalDateTime.now().plus(ttl))
+                .tryCount(0)
+                .status(0)
+                .build();
+
+        codeRepository.save(newRecord);
+    }
+
+    @Override
+    @Transactional
+    public Verification verify(String email, String scene, String code, int maxTries) {
+        EmailVerificationCode record = codeRepository
+                .findTopByEmailAndSceneOrderByCreatedTimeDesc(email, scene)
+                .orElse(null);
+        if (record == null) {
+            return new Verification(Result.NOT_FOUND, 0);
+        }
+
+        // 检查状态
+        if (record.getStatus() == 2) {
+            return new Verification(Result.INVALIDATED, 0);
+        }
+
+        // 检查是否过期
+        if (record.isExpired()) {
+            record.setStatus(2);
+            codeRepository.save(record);
+            return new Verification(Result.EXPIRED, 0);
+        }
+
+        // 检查尝试次数
+        if (record.isMaxTriesReached(maxTries)) {
+            record.setStatus(2);
+            codeRepository.save(record);
+            return new Verification(Result.TOO_MANY_TRIES, 0);
+        }
+
+        // 验证码比对
+        if (!code.equals(record.getCode())) {
+            record.incrementTryCount();
+            codeRepository.save(record);
+            return new Verification(Result.MISMATCH, maxTries - record.getTryCount());
+        }
+
+        // 验证通过，更新状态
+        record.setStatus(1);
+        codeRepository.save(record);
+        return new Verification(Result.OK, 0);
+    }
+
+    @Override
+    public SendHistory sendHistory(String email, String scene, LocalDateTime since) {
+        LocalDateTime lastSentAt = codeRepository.findFirstByEmailAndSceneOrderByCreatedTimeDesc(email, scene)
+                .map(EmailVerificationCode::getCreatedTime)
+                .orElse(null);
+        long sentSince = lastSentAt == null ? 0 : codeRepository.countByEmailAndSceneAndCreatedTimeAfter(email, scene, since);
+        return new SendHistory(lastSentAt, sentSince);
+    }
+
+    /**
+     * 分批删除过期超过保留期的验证码记录
+     */
+    @Scheduled(initialDelayString = "${app.verification.purge.interval-ms:600000}",
+            fixedDelayString = "${app.verification.purge.interval-ms:600000}")
+    public void purge() {
+        long start = System.nanoTime();
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = codeRepository.findIdsExpiredBefore(cutoff, Limit.of(batchSize));
+            if (!ids.isEmpty()) {
+                codeRepository.deleteAllByIdInBatch(ids);
+                deleted += ids.size();
+            }
+            if (ids.size() == batchSize && batchPauseMs > 0) {
+                try {
+                    Thread.sleep(batchPauseMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } while (ids.size() == batchSize);
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        purgeRuns.increment();
+        purgedRows.add(deleted);
+        purgeMillis.add(elapsedMs);
+        lastPurgeAt = Instant.now();
+        lastPurgeRows = deleted;
+        lastPurgeMillis = elapsedMs;
+        if (deleted > 0) {
+            log.info("清理过期验证码 {} 条，耗时 {} ms", deleted, elapsedMs);
+        }
+    }
+
+    @Override
+    public Map<String, Object> metrics() {
+        long runs = purgeRuns.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("store", "jpa");
+        metrics.put("rows", codeRepository.count());
+        metrics.put("purgeRuns", runs);
+        metrics.put("purgedRows", purgedRows.sum());
+        metrics.put("avgPurgeMs", runs == 0 ? 0.0 : (double) purgeMillis.sum() / runs);
+        metrics.put("lastPurgeAt", lastPurgeAt);
+        metrics.put("lastPurgeRows", lastPurgeRows);
+        metrics.put("lastPurgeMs", lastPurgeMillis);
+        return metrics;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.studentsystem.verification;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * 验证码存储。
+ * 由 app.verification.store 选择实现：
+ * - jpa（默认）：JpaVerificationCodeStore，保存在 email_verification_code 表，重启不丢失，多实例共享。
+ * - memory：InMemoryVerificationCodeStore，保存在带过期时间的内存 Map 中，发送与校验都不访问数据库；
+ *   重启后未使用的验证码失效，且只适用于单实例部署。
+ */
+public interface VerificationCodeStore {
+
+    /**
+     * 校验结果
+     */
+    enum Result {
+        /** 校验通过 */
+        OK,
+        /** 没有验证码或已被清理 */
+        NOT_FOUND,
+        /** 已失效（被新验证码取代、过期或错误次数过多） */
+        INVALIDATED,
+        /** 已过期（本次校验后失效） */
+        EXPIRED,
+        /** 错误次数已达上限（本次校验后失效） */
+        TOO_MANY_TRIES,
+        /** 验证码错误，已累计一次错误 */
+        MISMATCH
+    }
+
+    /**
+     * 一次校验的结果
+     * @param result         校验结果
+     * @param remainingTries 验证码错误时剩余的可尝试次数
+     */
+    record Verification(Result result, int remainingTries) {}
+
+    /**
+     * 某个邮箱在某个场景下的发送记录，供限流器冷启动时恢复计数
+     * @param lastSentAt 最近一次发送时间，没有则为 null
+     * @param sentSince  指定时间之后的发送次数
+     */
+    record SendHistory(LocalDateTime lastSentAt, long sentSince) {}
+
+    /**
+     * 保存新验证码，同一邮箱同一场景的旧验证码失效
+     */
+    void save(String email, String scene, String code, Duration ttl);
+
+    /**
+     * 校验验证码并原子地更新状态（错误次数加一、通过、失效）
+     */
+    Verification verify(String email, String scene, String code, int maxTries);
+
+    /**
+     * 查询发送记录
+     */
+    SendHistory sendHistory(String email, String scene, LocalDateTime since);
+
+    /**
+     * 存储与清理统计信息
+     */
+    Map<String, Object> metrics();
+}
@@ -0,0 +1,205 @@
+package com.example.studentsystem.verification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 验证码发送频率限制（内存实现，无锁）。
+ * - 按 (邮箱, 场景)：两次发送间隔不少于 intervalSeconds，每个自然日不超过 dailyLimit 次。
+ * - 按客户端 IP：令牌桶，容量 ipCapacity，每分钟补充 ipRefillPerMinute 个，限制同一 IP 轮换邮箱批量发送。
+ *   默认关闭（app.verification.rate-limit.ip-enabled）：部署在网关之后时所有请求的 remoteAddr 都是网关地址，
+ *   需先配置 app.security.trusted-proxies 让 ClientIpResolver 取到真实客户端 IP，再开启。
+ *   邮箱的间隔与每日上限先检查，通过后才消耗 IP 令牌，重复点击等被邮箱限制拒绝的请求不占用 IP 额度。
+ * - 每个键的状态是不可变对象，放在 AtomicReference 中用 CAS 替换：检查与记录一步完成，
+ *   并发请求中只有一个能通过同一个时间窗口，不再有“先 count 后 insert”的竞态，也不再查询 email_verification_code。
+ * - 在事务中调用时（EmailVerificationService 的发送方法），事务未提交（保存验证码、写入发件箱失败而回滚）
+ *   则撤销本次记录并归还 IP 令牌，用户没有收到邮件就不会被间隔与每日上限锁住。
+ * - 状态存放在有容量上限、按访问时间过期的 Caffeine 缓存中，内存占用有界。
+ * - 某个 (邮箱, 场景) 不在缓存中时（应用重启、条目被淘汰），从验证码存储中的发送记录恢复最近发送时间与当日次数，
+ *   之后的判断只访问内存。
+ * - 限制是单实例的：多实例部署时，每个实例各自计数。
+ */
+@Component
+public class VerificationRateLimiter {
+
+    /**
+     * (邮箱, 场景) 的发送状态
+     * @param lastSendAt 最近一次发送时间（毫秒）
+     * @param day        dayCount 所属的日期（epoch day）
+     * @param dayCount   当日已发送次数
+     */
+    private record SendState(long lastSendAt, long day, int dayCount) {}
+
+    /**
+     * IP 令牌桶状态
+     * @param tokens     剩余令牌数
+     * @param refilledAt 上次补充令牌的时间（纳秒）
+     */
+    private record Bucket(double tokens, long refilledAt) {}
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final VerificationCodeStore codeStore;
+    private final long intervalMillis;
+    private final int dailyLimit;
+    private final boolean ipEnabled;
+    private final double ipCapacity;
+    private final double ipTokensPerNano;
+
+    private final Cache<String, AtomicReference<SendState>> sends;
+    private final Cache<String, AtomicReference<Bucket>> ipBuckets;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejectedInterval = new LongAdder();
+    private final LongAdder rejectedDaily = new LongAdder();
+    private final LongAdder rejectedIp = new LongAdder();
+    private final LongAdder storeLoads = new LongAdder();
+    private final LongAdder rolledBack = new LongAdder();
+
+    public VerificationRateLimiter(VerificationCodeStore codeStore,
+                                   @Value("${app.verification.rate-limit.interval-seconds:60}") long intervalSeconds,
+                                   @Value("${app.verification.rate-limit.daily-limit:10}") int dailyLimit,
+                                   @Value("${app.verification.rate-limit.ip-enabled:false}") boolean ipEnabled,
+                                   @Value("${app.verification.rate-limit.ip-capacity:10}") int ipCapacity,
+                                   @Value("${app.verification.rate-limit.ip-refill-per-minute:1}") double ipRefillPerMinute,
+                                   @Value("${app.verification.rate-limit.max-keys:100000}") long maxKeys) {
+        this.codeStore = codeStore;
+        this.intervalMillis = Duration.ofSeconds(intervalSeconds).toMillis();
+        this.dailyLimit = dailyLimit;
+        this.ipEnabled = ipEnabled;
+        this.ipCapacity = ipCapacity;
+        this.ipTokensPerNano = ipRefillPerMinute / Duration.ofMinutes(1).toNanos();
+        // 当日次数需要保留到当天结束，按访问时间保留一天即可覆盖
+        this.sends = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofDays(1))
+                .build();
+        // 空闲超过令牌补满所需的时间后，条目与新建的满桶等价，可以淘汰（默认配置 10 分钟即补满）
+        this.ipBuckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofHours(1))
+                .build();
+    }
+
+    /**
+     * 检查并记录一次发送；超出限制时不记录。在事务中调用时，事务未提交则撤销记录
+     * @param clientIp 客户端 IP，为空或未开启 IP 限制时不做 IP 限制
+     * @throws IllegalArgumentException 超出发送频率限制
+     */
+    public void acquire(String email, String scene, String clientIp) {
+        AtomicReference<SendState> ref = sends.get(email + '|' + scene,
+                key -> new AtomicReference<>(loadFromStore(email, scene)));
+        // 先检查邮箱的间隔与每日上限，通过后才消耗 IP 令牌；之后 CAS 失败重试时若被邮箱限制拒绝，归还令牌
+        AtomicReference<Bucket> ipBucket = null;
+        while (true) {
+            long now = System.currentTimeMillis();
+            long today = LocalDate.now(ZONE).toEpochDay();
+            SendState current = ref.get();
+            if (now - current.lastSendAt() < intervalMillis) {
+                rejectedInterval.increment();
+                refundIpToken(ipBucket);
+                throw new IllegalArgumentException("操作过于频繁，请 " + intervalMillis / 1000 + " 秒后再试");
+            }
+            int count = current.day() == today ? current.dayCount() : 0;
+            if (count >= dailyLimit) {
+                rejectedDaily.increment();
+                refundIpToken(ipBucket);
+                throw new IllegalArgumentException("今日发送次数已达上限");
+            }
+            if (ipBucket == null && ipEnabled && clientIp != null) {
+                ipBucket = tryConsumeIpToken(clientIp);
+                if (ipBucket == null) {
+                    rejectedIp.increment();
+                    throw new IllegalArgumentException("请求过于频繁，请稍后再试");
+                }
+            }
+            SendState next = new SendState(now, today, count + 1);
+            if (ref.compareAndSet(current, next)) {
+                allowed.increment();
+                undoOnRollback(ref, current, next, ipBucket);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 限流统计信息
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("ipLimitEnabled", ipEnabled);
+        metrics.put("trackedEmails", sends.estimatedSize());
+        metrics.put("trackedIps", ipBuckets.estimatedSize());
+        metrics.put("allowed", allowed.sum());
+        metrics.put("rejectedInterval", rejectedInterval.sum());
+        metrics.put("rejectedDaily", rejectedDaily.sum());
+        metrics.put("rejectedIp", rejectedIp.sum());
+        metrics.put("storeLoads", storeLoads.sum());
+        metrics.put("rolledBack", rolledBack.sum());
+        return metrics;
+    }
+
+    // 事务回滚时恢复为记录前的状态；期间状态已被其它请求改变（如跨天重置）则保留当前状态
+    private void undoOnRollback(AtomicReference<SendState> ref, SendState previous, SendState recorded,
+                                AtomicReference<Bucket> ipBucket) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                rolledBack.increment();
+                ref.compareAndSet(recorded, previous);
+                refundIpToken(ipBucket);
+            }
+        });
+    }
+
+    // 消耗一个令牌，成功时返回所在的桶（用于归还），令牌不足时返回 null
+    private AtomicReference<Bucket> tryConsumeIpToken(String clientIp) {
+        AtomicReference<Bucket> ref = ipBuckets.get(clientIp,
+                key -> new AtomicReference<>(new Bucket(ipCapacity, System.nanoTime())));
+        while (true) {
+            long now = System.nanoTime();
+            Bucket current = ref.get();
+            double tokens = Math.min(ipCapacity, current.tokens() + (now - current.refilledAt()) * ipTokensPerNano);
+            if (tokens < 1) {
+                return null;
+            }
+            if (ref.compareAndSet(current, new Bucket(tokens - 1, now))) {
+                return ref;
+            }
+        }
+    }
+
+    private void refundIpToken(AtomicReference<Bucket> ref) {
+        if (ref != null) {
+            ref.updateAndGet(b -> new Bucket(Math.min(ipCapacity, b.tokens() + 1), b.refilledAt()));
+        }
+    }
+
+    // 缓存中没有该键时，用验证码存储中的发送记录恢复状态（使用数据库存储时，重启后不会重置限制）
+    private SendState loadFromStore(String email, String scene) {
+        storeLoads.increment();
+        LocalDate today = LocalDate.now(ZONE);
+        VerificationCodeStore.SendHistory history = codeStore.sendHistory(email, scene, today.atStartOfDay());
+        long lastSendAt = history.lastSentAt() == null ? 0
+                : history.lastSentAt().atZone(ZONE).toInstant().toEpochMilli();
+        return new SendState(lastSendAt, today.toEpochDay(), (int) history.sentSince());
+    }
+}
@@ -1,10 +1,18 @@
 package com.example.studentsystem.web;
 
+import com.example.studentsystem.exception.ServiceBusyException;
+import com.example.studentsystem.model.User;
 import com.example.studentsystem.security.jwt.JwtService;
+import com.example.studentsystem.security.jwt.RefreshTokenService;
+import com.example.studentsystem.security.jwt.TokenRevocationService;
 import com.example.studentsystem.service.UserService;
 import com.example.studentsystem.service.EmailVerificationService;
 import com.example.studentsystem.web.dto.AuthRequest;
 import com.example.studentsystem.web.dto.AuthResponse;
+import com.example.studentsystem.web.dto.RefreshRequest;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -17,12 +25,14 @@ import java.util.Map;
 /**
  * AuthController - 认证控制器
  * 核心职责：
- * - 提供注册、登录、重置密码等认证接口
+ * - 提供注册、登录、刷新令牌、退出登录、重置密码等认证接口
  * - 协作组件：UserService(用户管理)、AuthenticationManager(认证)、JwtService(JWT生成)
  * 认证流程：
  * 1. 注册：加密密码后入库，不生成token
- * 2. 登录：Spring Security认证通过后生成JWT返回
+ * 2. 登录：Spring Security认证通过后返回短期有效的访问令牌(JWT)与刷新令牌
  * 3. 后续请求：客户端携带 Authorization: Bearer <token>，由JwtAuthenticationFilter校验
+ * 4. 刷新：访问令牌过期后用刷新令牌换取新的一对令牌，旧刷新令牌随即失效（轮换）
+ * 5. 退出登录：将当前 token 的 jti 加入吊销列表，该 token 立即失效，同时吊销刷新令牌
  * 异常：注册失败400，登录失败401
  */
 @RestController
@@ -37,6 +47,10 @@ public class AuthController {
     private final JwtService jwtService;
     // EmailVerificationService：邮箱验证服务
     private final EmailVerificationService emailVerificationService;
+    // TokenRevocationService：退出登录时吊销当前 token
+    private final TokenRevocationService tokenRevocationService;
+    // RefreshTokenService：刷新令牌的签发、轮换与吊销
+    private final RefreshTokenService refreshTokenService;
 
     /**
      * 构造函数注入：
@@ -46,11 +60,15 @@ public class AuthController {
     public AuthController(UserService userService,
                           AuthenticationManager authenticationManager,
                           JwtService jwtService,
-                          EmailVerificationService emailVerificationService) {
+                          EmailVerificationService emailVerificationService,
+                          TokenRevocationService tokenRevocationService,
+                          RefreshTokenService refreshTokenService) {
         this.userService = userService;
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.emailVerificationService = emailVerificationService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     /**
@@ -78,8 +96,9 @@ public class AuthController {
      * 功能：用户登录认证并签发 JWT。
      * 步骤：
      * 1. 通过 AuthenticationManager 验证用户名密码。
-     * 2. 认证成功后生成包含用户角色的 JWT token。
-     * 3. 返回 token 给客户端，用于后续请求的 Authorization 头。
+     * 2. 认证成功后生成包含用户角色的 JWT token，并签发新的刷新令牌。
+     * 3. 返回 token 给客户端，用于后续请求的 Authorization 头；refreshToken 用于 token 过期后调用 /refresh。
+     * 密码校验在有界的哈希线程池中执行，线程池饱和时抛出 ServiceBusyException，由全局异常处理返回 503 + Retry-After。
      */
     @PostMapping("/login")
     public ResponseEntity<?> login(@RequestBody AuthRequest req) {
@@ -89,24 +108,69 @@ public class AuthController {
             );
             // 加载用户信息获取角色
             var user = userService.loadUserByUsername(req.username());
-            var roles = user.getRoles().stream()
-                    .map(Enum::name)
-                    .toList();
-            // 生成包含角色信息的 token
-            String token = jwtService.generateToken(req.username(), roles);
-            return ResponseEntity.ok(new AuthResponse(token));
+            return ResponseEntity.ok(issueTokens(user, refreshTokenService.issue(user)));
         } catch (BadCredentialsException ex) {
             return ResponseEntity.status(401).body("用户名或密码错误");
         }
     }
 
+    /**
+     * POST /api/auth/refresh
+     * 功能：用刷新令牌换取新的访问令牌与刷新令牌。
+     * 步骤：
+     * 1. 校验刷新令牌存在、未过期、未吊销且未被使用过。
+     * 2. 标记旧刷新令牌已使用，签发同一家族的新刷新令牌；按数据库中最新的角色生成访问令牌。
+     * 3. 已使用过的刷新令牌再次提交视为泄露，吊销整个家族，返回 401。
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest req) {
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(req.refreshToken());
+            return ResponseEntity.ok(issueTokens(rotation.user(), rotation.refreshToken()));
+        } catch (BadCredentialsException ex) {
+            return ResponseEntity.status(401).body(ex.getMessage());
+        }
+    }
+
+    /**
+     * POST /api/auth/logout
+     * 功能：退出登录，吊销请求头中携带的 token。
+     * 步骤：
+     * 1. 从 Authorization 头取出 token 并校验（无效或已过期的 token 无需吊销，返回 401）。
+     * 2. 将 jti 写入吊销列表，本实例立即生效，其它实例在下次定时刷新后生效。
+     * 3. 请求体携带 refreshToken 时，吊销其所在的刷新令牌家族。
+     * 4. 返回 204。
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+                                    @RequestBody(required = false) RefreshRequest req) {
+        boolean hasRefreshToken = req != null && req.refreshToken() != null;
+        if (hasRefreshToken) {
+            refreshTokenService.revoke(req.refreshToken());
+        }
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            // 访问令牌已丢失或过期时，允许只注销刷新令牌
+            return hasRefreshToken ? ResponseEntity.noContent().build()
+                    : ResponseEntity.badRequest().body("缺少 Authorization 请求头");
+        }
+        try {
+            Claims claims = jwtService.verify(authHeader.substring(7));
+            tokenRevocationService.revoke(claims);
+            return ResponseEntity.noContent().build();
+        } catch (JwtException ex) {
+            return ResponseEntity.status(401).body("token 无效或已过期");
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(ex.getMessage());
+        }
+    }
+
     /**
      * POST /api/auth/reset-password
      * 功能：重置密码（需要邮箱验证）。
      * 输入：{ email, code, newPassword }
      * 步骤：
      * 1. 校验邮箱验证码是否正确且未过期。
-     * 2. 验证通过后调用 userService.resetPassword 更新密码。
+     * 2. 验证通过后调用 userService.resetPassword 更新密码，同时使该用户已签发的 token 全部失效。
      * 3. 返回成功消息。
      */
     @PostMapping("/reset-password")
@@ -135,8 +199,20 @@ public class AuthController {
             return ResponseEntity.ok("密码重置成功，请使用新密码登录");
         } catch (IllegalArgumentException ex) {
             return ResponseEntity.badRequest().body(ex.getMessage());
+        } catch (ServiceBusyException ex) {
+            // 密码哈希线程池已满，交由全局异常处理返回 503
+            throw ex;
         } catch (Exception ex) {
             return ResponseEntity.status(500).body("重置密码失败，请稍后重试");
         }
     }
+
+    // 按用户当前角色生成访问令牌，与刷新令牌一起返回
+    private AuthResponse issueTokens(User user, String refreshToken) {
+        var roles = user.getRoles().stream()
+                .map(Enum::name)
+                .toList();
+        String token = jwtService.generateToken(user.getId(), user.getUsername(), roles);
+        return new AuthResponse(token, refreshToken, jwtService.accessTokenTtlSeconds());
+    }
 }
@@ -1,3 +1,9 @@
 package com.example.studentsystem.web.dto;
 
-public record AuthResponse(String token) {}
+/**
+ * 登录与刷新的响应
+ * @param token        访问令牌（JWT），放在 Authorization 头中使用
+ * @param refreshToken 刷新令牌，只用于 /api/auth/refresh，每次刷新后旧值失效
+ * @param expiresIn    访问令牌有效期（秒）
+ */
+public record AuthResponse(String token, String refreshToken, long expiresIn) {}
@@ -0,0 +1,3 @@
+package com.example.studentsystem.web.dto;
+
+public record RefreshRequest(String refreshToken) {}
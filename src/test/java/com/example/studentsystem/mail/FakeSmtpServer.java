@@ -0,0 +1,185 @@
+package com.example.studentsystem.mail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的进程内 SMTP 服务器，只实现发件所需的最少命令（EHLO / AUTH PLAIN / MAIL / RCPT / DATA / RSET / NOOP / QUIT）。
+ * - stallGreeting()：新连接在 releaseGreeting() 之前收不到 220 问候，模拟卡住的邮件服务器。
+ * - failMailFrom(n)：接下来 n 次 MAIL FROM 回复 421 并断开连接，模拟临时故障（Integer.MAX_VALUE 即一直失败）。
+ * - 记录每次 MAIL FROM 的时间与结果，以及成功投递的收件人。
+ */
+final class FakeSmtpServer implements AutoCloseable {
+
+    /**
+     * 一次 MAIL FROM 命令
+     * @param atNanos  收到命令的时间（System.nanoTime）
+     * @param accepted 是否回复了 250
+     */
+    record MailFrom(long atNanos, boolean accepted) {}
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "fake-smtp");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private volatile CountDownLatch greetingGate;
+    private final Semaphore stalledConnections = new Semaphore(0);
+    private final AtomicInteger mailFromFailures = new AtomicInteger();
+    private final List<MailFrom> mailFroms = new CopyOnWriteArrayList<>();
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+
+    FakeSmtpServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        executor.execute(this::acceptLoop);
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * 恢复正常行为并清空记录
+     */
+    void reset() {
+        releaseGreeting();
+        stalledConnections.drainPermits();
+        mailFromFailures.set(0);
+        mailFroms.clear();
+        delivered.clear();
+    }
+
+    void stallGreeting() {
+        greetingGate = new CountDownLatch(1);
+    }
+
+    void releaseGreeting() {
+        CountDownLatch gate = greetingGate;
+        greetingGate = null;
+        if (gate != null) {
+            gate.countDown();
+        }
+    }
+
+    /**
+     * 等待有连接卡在问候阶段
+     */
+    boolean awaitStalledConnection(long timeout, TimeUnit unit) throws InterruptedException {
+        return stalledConnections.tryAcquire(timeout, unit);
+    }
+
+    void failMailFrom(int times) {
+        mailFromFailures.set(times);
+    }
+
+    List<MailFrom> mailFroms() {
+        return List.copyOf(mailFroms);
+    }
+
+    List<String> delivered() {
+        return List.copyOf(delivered);
+    }
+
+    @Override
+    public void close() throws IOException {
+        releaseGreeting();
+        serverSocket.close();
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> handle(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (socket) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            CountDownLatch gate = greetingGate;
+            if (gate != null) {
+                stalledConnections.release();
+                gate.await();
+            }
+            reply(out, "220 localhost fake smtp");
+            List<String> recipients = new CopyOnWriteArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line.toUpperCase() : line.substring(0, 4).toUpperCase();
+                switch (command) {
+                    case "EHLO" -> reply(out, "250-localhost\r\n250-AUTH PLAIN\r\n250 OK");
+                    case "HELO", "RSET", "NOOP" -> reply(out, "250 OK");
+                    case "AUTH" -> {
+                        // 没有附带初始响应时先索要凭据，凭据一律接受
+                        if (line.trim().split(" ").length < 3) {
+                            reply(out, "334 ");
+                            in.readLine();
+                        }
+                        reply(out, "235 Authentication successful");
+                    }
+                    case "MAIL" -> {
+                        recipients.clear();
+                        if (mailFromFailures.getAndUpdate(n -> n == Integer.MAX_VALUE ? n : Math.max(n - 1, 0)) > 0) {
+                            mailFroms.add(new MailFrom(System.nanoTime(), false));
+                            reply(out, "421 Service not available, try again later");
+                            return;
+                        }
+                        mailFroms.add(new MailFrom(System.nanoTime(), true));
+                        reply(out, "250 OK");
+                    }
+                    case "RCPT" -> {
+                        recipients.add(line.substring(line.indexOf('<') + 1, line.lastIndexOf('>')));
+                        reply(out, "250 OK");
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // 丢弃邮件内容
+                        }
+                        delivered.addAll(recipients);
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "500 Unrecognized command");
+                }
+            }
+        } catch (SocketException e) {
+            // 客户端断开连接
+        } catch (IOException e) {
+            // 测试服务器忽略连接错误
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void reply(OutputStream out, String response) throws IOException {
+        out.write((response + "\r\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
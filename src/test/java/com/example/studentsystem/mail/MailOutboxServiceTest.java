@@ -0,0 +1,185 @@
+package com.example.studentsystem.mail;
+
+import com.example.studentsystem.model.MailOutboxMessage;
+import com.example.studentsystem.repository.MailOutboxRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 发件箱端到端测试：验证码接口入队，后台线程通过进程内 SMTP 服务器（FakeSmtpServer）发送。
+ * QQ 邮箱指向 FakeSmtpServer，网易邮箱指向一个没有监听的端口（连接立即被拒绝），
+ * 因此每次投递的结果只取决于 FakeSmtpServer 的行为；熔断阈值调大，避免测试中途熔断。
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "app.search.lucene.path=target/test-lucene/mail-outbox",
+        "app.mail.outbox.poll-interval-ms=50",
+        "app.mail.outbox.retry-base-ms=200",
+        "app.mail.outbox.retry-max-ms=1000",
+        "app.mail.outbox.max-attempts=3",
+        "app.mail.circuit.minimum-calls=1000",
+        "app.mail.circuit.consecutive-failures=1000"
+})
+@AutoConfigureMockMvc
+class MailOutboxServiceTest {
+
+    private static final FakeSmtpServer SMTP;
+    private static final int REFUSED_PORT;
+
+    static {
+        try {
+            SMTP = new FakeSmtpServer();
+            try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                REFUSED_PORT = socket.getLocalPort();
+            }
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void mailProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.qq.host", () -> "127.0.0.1");
+        registry.add("spring.mail.qq.port", SMTP::port);
+        registry.add("spring.mail.qq.username", () -> "sender@qq.test");
+        registry.add("spring.mail.qq.password", () -> "secret");
+        registry.add("spring.mail.qq.ssl", () -> "false");
+        registry.add("spring.mail.netease.host", () -> "127.0.0.1");
+        registry.add("spring.mail.netease.port", () -> REFUSED_PORT);
+        registry.add("spring.mail.netease.username", () -> "sender@163.test");
+        registry.add("spring.mail.netease.password", () -> "secret");
+        registry.add("spring.mail.netease.ssl", () -> "false");
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MailOutboxRepository outboxRepository;
+
+    @Autowired
+    private MailDeliveryService deliveryService;
+
+    // 关闭上一个测试留在池中的连接，使每次 MAIL FROM 都对应一次投递
+    @BeforeEach
+    void resetServer() {
+        deliveryService.close();
+        SMTP.reset();
+    }
+
+    @AfterAll
+    static void stopServer() throws IOException {
+        SMTP.close();
+    }
+
+    @Test
+    void sendEndpointReturnsWhileSmtpIsStalled() throws Exception {
+        SMTP.stallGreeting();
+        try {
+            // 第一封邮件让发送线程卡在 SMTP 问候阶段
+            requestCode("stalled-first@example.com");
+            assertThat(SMTP.awaitStalledConnection(5, TimeUnit.SECONDS)).isTrue();
+
+            // 发送线程被占住时，接口仍然立即返回
+            long start = System.nanoTime();
+            requestCode("stalled-second@example.com");
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            assertThat(elapsedMs).isLessThan(2_000);
+            assertThat(find("stalled-first@example.com").getStatus()).isEqualTo(MailOutboxMessage.Status.SENDING);
+            assertThat(find("stalled-second@example.com").getStatus()).isEqualTo(MailOutboxMessage.Status.PENDING);
+        } finally {
+            SMTP.releaseGreeting();
+        }
+
+        assertThat(awaitFinished("stalled-first@example.com").getStatus()).isEqualTo(MailOutboxMessage.Status.SENT);
+        assertThat(awaitFinished("stalled-second@example.com").getStatus()).isEqualTo(MailOutboxMessage.Status.SENT);
+        assertThat(SMTP.delivered()).contains("stalled-first@example.com", "stalled-second@example.com");
+    }
+
+    @Test
+    void transientFailureIsRetriedWithBackoffThenDelivered() throws Exception {
+        SMTP.failMailFrom(2);
+
+        requestCode("transient@example.com");
+
+        MailOutboxMessage message = awaitFinished("transient@example.com");
+        assertThat(message.getStatus()).isEqualTo(MailOutboxMessage.Status.SENT);
+        assertThat(message.getAttempts()).isEqualTo(3);
+        assertThat(message.getProvider()).isEqualTo("qq");
+        assertThat(message.getLastError()).isNull();
+        assertThat(SMTP.delivered()).containsExactly("transient@example.com");
+
+        // 两次 421 之后才成功，间隔按 retry-base-ms 翻倍（±20% 抖动）
+        List<FakeSmtpServer.MailFrom> attempts = SMTP.mailFroms();
+        assertThat(attempts).extracting(FakeSmtpServer.MailFrom::accepted).containsExactly(false, false, true);
+        assertThat(gapMillis(attempts, 0)).isGreaterThanOrEqualTo(160);
+        assertThat(gapMillis(attempts, 1)).isGreaterThanOrEqualTo(320);
+    }
+
+    @Test
+    void persistentFailureEndsAsFailedAfterMaxAttempts() throws Exception {
+        SMTP.failMailFrom(Integer.MAX_VALUE);
+
+        requestCode("persistent@example.com");
+
+        MailOutboxMessage message = awaitFinished("persistent@example.com");
+        assertThat(message.getStatus()).isEqualTo(MailOutboxMessage.Status.FAILED);
+        assertThat(message.getAttempts()).isEqualTo(3);
+        assertThat(message.getLastError()).contains("421");
+        assertThat(SMTP.mailFroms()).hasSize(3).noneMatch(FakeSmtpServer.MailFrom::accepted);
+        assertThat(SMTP.delivered()).isEmpty();
+    }
+
+    private void requestCode(String email) throws Exception {
+        mockMvc.perform(post("/api/auth/email/code/send")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + email + "\",\"scene\":\"register\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.code").value(0));
+    }
+
+    private MailOutboxMessage find(String recipient) {
+        return outboxRepository.findAll().stream()
+                .filter(message -> message.getRecipient().equals(recipient))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    // 等待邮件进入最终状态（SENT 或 FAILED）
+    private MailOutboxMessage awaitFinished(String recipient) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+        while (System.nanoTime() < deadline) {
+            MailOutboxMessage message = find(recipient);
+            if (message.getStatus() == MailOutboxMessage.Status.SENT
+                    || message.getStatus() == MailOutboxMessage.Status.FAILED) {
+                return message;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("邮件未在 15 秒内发送完成: " + recipient);
+    }
+
+    private static long gapMillis(List<FakeSmtpServer.MailFrom> attempts, int index) {
+        return (attempts.get(index + 1).atNanos() - attempts.get(index).atNanos()) / 1_000_000;
+    }
+}